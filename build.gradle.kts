@@ -47,6 +47,8 @@ dependencies {
     testRuntimeOnly(libs.archunit.junit5)
     testImplementation(libs.archunit.core)
 
+    testImplementation(libs.mockito.core)
+
     intellijPlatform {
         intellijIdea(
             libs.versions.intellij.idea
@@ -55,8 +57,10 @@ dependencies {
         pluginVerifier()
         bundledPlugin("com.intellij.java")
         bundledPlugin("org.jetbrains.idea.maven")
+        bundledPlugin("JUnit")
         bundledPlugin("Git4Idea")
         testFramework(TestFrameworkType.Platform)
+        testFramework(TestFrameworkType.JUnit5)
 
         val localJbr = System.getenv("LOCAL_JBR")
         localJbr?.let {
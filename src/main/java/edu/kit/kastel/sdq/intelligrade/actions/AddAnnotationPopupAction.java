@@ -1,10 +1,15 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.actions;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 
@@ -13,19 +18,64 @@ import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
-import com.intellij.openapi.actionSystem.DataContext;
-import com.intellij.openapi.actionSystem.DefaultActionGroup;
 import com.intellij.openapi.editor.Caret;
 import com.intellij.openapi.ui.popup.JBPopupFactory;
-import com.intellij.ui.AnActionButton;
+import com.intellij.openapi.ui.popup.ListPopupStepEx;
+import com.intellij.openapi.ui.popup.PopupStep;
+import com.intellij.openapi.ui.popup.util.BaseListPopupStep;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.psi.codeStyle.NameUtil;
 import com.intellij.ui.popup.list.ListPopupImpl;
+import com.intellij.util.ui.StatusText;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.GradingConfig;
 import edu.kit.kastel.sdq.artemis4j.grading.penalty.MistakeType;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
+import edu.kit.kastel.sdq.intelligrade.state.MistakeTypeUsage;
 import edu.kit.kastel.sdq.intelligrade.state.PluginState;
 import edu.kit.kastel.sdq.intelligrade.utils.ArtemisUtils;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 public class AddAnnotationPopupAction extends AnAction {
-    private static final Locale LOCALE = DynamicBundle.getLocale();
+    // The items are only created once per grading config and locale, translating the texts of
+    // hundreds of mistake types every time the popup is opened would be noticeably slow.
+    // Both are only accessed on the EDT, and cleared when the assessment they were created for is closed.
+    private static CachedItems cachedItems;
+    private static RankedItems rankedItems;
+
+    /**
+     * An entry of the popup. The text and the search string are computed once when the item is created.
+     *
+     * @param mistakeType the mistake type of the entry
+     * @param text the displayed text
+     * @param tooltip the message of the mistake type, or null for custom annotations
+     * @param searchString the tokens the speed search matches against
+     */
+    private record MistakeTypeItem(MistakeType mistakeType, String text, String tooltip, String searchString) {
+        static MistakeTypeItem of(MistakeType mistakeType, Locale locale) {
+            String text = mistakeType.getButtonText().translateTo(locale);
+
+            // The speed search matches fuzzily against the tokens, so that e.g. "unused var" finds "Unused Variable"
+            // and the rating group or id of a mistake type can be searched as well.
+            Set<String> tokens = new LinkedHashSet<>();
+            tokens.addAll(List.of(NameUtil.nameToWords(text)));
+            tokens.addAll(List.of(NameUtil.nameToWords(
+                    mistakeType.getRatingGroup().getDisplayName().translateTo(locale))));
+            tokens.addAll(List.of(NameUtil.nameToWords(mistakeType.getId())));
+            tokens.removeIf(String::isBlank);
+
+            return new MistakeTypeItem(
+                    mistakeType,
+                    text,
+                    mistakeType.isCustomAnnotation() ? null : mistakeType.getMessage().translateTo(locale),
+                    String.join(" ", tokens));
+        }
+    }
+
+    private record CachedItems(GradingConfig gradingConfig, Locale locale, List<MistakeTypeItem> items) {}
+
+    private record RankedItems(
+            CachedItems source, long exerciseId, long usageModificationCount, List<MistakeTypeItem> items) {}
 
     @Override
     public @NonNull ActionUpdateThread getActionUpdateThread() {
@@ -60,22 +110,9 @@ public class AddAnnotationPopupAction extends AnAction {
             return;
         }
 
-        // collect all mistake types that can be annotated
-        var mistakeTypes = assessment.getGradingConfig().getMistakeTypes();
-
-        var actions = new DefaultActionGroup();
-        for (var mistakeType : mistakeTypes) {
-            actions.add(new MistakeTypeButton(mistakeType));
-        }
-
-        // create a popup with all possible mistakes
+        // create a popup with all possible mistakes, the most used ones first
         var popup = JBPopupFactory.getInstance()
-                .createActionGroupPopup(
-                        "Add Annotation",
-                        actions,
-                        DataContext.EMPTY_CONTEXT,
-                        JBPopupFactory.ActionSelectionAid.SPEEDSEARCH,
-                        false);
+                .createListPopup(new MistakeTypeStep(assessment, getItems(assessment)));
 
         // Code borrowed from ListPopupImpl#createContent (line 323) to allow ctrl+enter for selection
         var listPopup = ((ListPopupImpl) popup);
@@ -98,32 +135,100 @@ public class AddAnnotationPopupAction extends AnAction {
         popup.showInBestPositionFor(caret.getEditor());
     }
 
-    private static class MistakeTypeButton extends AnActionButton {
-        private final MistakeType mistakeType;
+    /**
+     * Returns the items of all mistake types, ordered by how often the tutor used them in the exercise.
+     * Mistake types that have been used equally often keep the order of the grading config.
+     *
+     * @param assessment the active assessment
+     * @return the ordered items
+     */
+    private static List<MistakeTypeItem> getItems(ActiveAssessment assessment) {
+        var gradingConfig = assessment.getGradingConfig();
+        var locale = DynamicBundle.getLocale();
+        if (cachedItems == null
+                || cachedItems.gradingConfig() != gradingConfig
+                || !cachedItems.locale().equals(locale)) {
+            List<MistakeTypeItem> items = new ArrayList<>();
+            for (var mistakeType : gradingConfig.getMistakeTypes()) {
+                items.add(MistakeTypeItem.of(mistakeType, locale));
+            }
+
+            cachedItems = new CachedItems(gradingConfig, locale, List.copyOf(items));
+            // the items reference the grading config, which must not be kept alive after the assessment
+            Disposer.register(assessment, AddAnnotationPopupAction::clearCaches);
+        }
 
-        public MistakeTypeButton(MistakeType mistakeType) {
-            super(mistakeType.getButtonText().translateTo(LOCALE));
-            this.mistakeType = mistakeType;
+        var usage = MistakeTypeUsage.getInstance();
+        long exerciseId = assessment.getAssessment().getSubmission().getExercise().getId();
+        // the ranking only has to be updated if a mistake type has been used since the last time
+        if (rankedItems == null
+                || rankedItems.source() != cachedItems
+                || rankedItems.exerciseId() != exerciseId
+                || rankedItems.usageModificationCount() != usage.getModificationCount()) {
+            long modificationCount = usage.getModificationCount();
+            List<MistakeTypeItem> items = new ArrayList<>(cachedItems.items());
+            // the sort is stable, so the order of the grading config is kept for equal counts
+            items.sort(Comparator.comparingInt(
+                            (MistakeTypeItem item) -> usage.getCount(exerciseId, item.mistakeType()))
+                    .reversed());
+
+            rankedItems = new RankedItems(cachedItems, exerciseId, modificationCount, List.copyOf(items));
+        }
+
+        return rankedItems.items();
+    }
+
+    private static void clearCaches() {
+        cachedItems = null;
+        rankedItems = null;
+    }
+
+    private static class MistakeTypeStep extends BaseListPopupStep<MistakeTypeItem>
+            implements ListPopupStepEx<MistakeTypeItem> {
+        private final ActiveAssessment assessment;
+
+        MistakeTypeStep(ActiveAssessment assessment, List<MistakeTypeItem> items) {
+            super("Add Annotation", items);
+            this.assessment = assessment;
+        }
+
+        @Override
+        public @NonNull String getTextFor(MistakeTypeItem value) {
+            return value.text();
         }
 
         @Override
-        public void actionPerformed(@NonNull AnActionEvent e) {
-            boolean withCustomMessage =
-                    e.getInputEvent() != null && e.getInputEvent().isControlDown();
-            PluginState.getInstance()
-                    .getActiveAssessment()
-                    .orElseThrow()
-                    .addAnnotationAtCaret(mistakeType, withCustomMessage);
+        public @Nullable String getTooltipTextFor(MistakeTypeItem value) {
+            return value.tooltip();
         }
 
         @Override
-        public @NonNull ActionUpdateThread getActionUpdateThread() {
-            return ActionUpdateThread.EDT;
+        public void setEmptyText(@NonNull StatusText emptyText) {
+            // the default empty text is fine
         }
 
         @Override
-        public boolean isDumbAware() {
+        public boolean isSpeedSearchEnabled() {
             return true;
         }
+
+        @Override
+        public String getIndexedString(MistakeTypeItem value) {
+            return value.searchString();
+        }
+
+        @Override
+        public @Nullable PopupStep<?> onChosen(MistakeTypeItem selectedValue, boolean finalChoice) {
+            return this.onChosen(selectedValue, finalChoice, null);
+        }
+
+        @Override
+        public @Nullable PopupStep<?> onChosen(
+                MistakeTypeItem selectedValue, boolean finalChoice, @Nullable InputEvent inputEvent) {
+            boolean withCustomMessage = inputEvent != null && inputEvent.isControlDown();
+            // the annotation is added after the popup has been closed, because it might open a dialog
+            return this.doFinalStep(
+                    () -> this.assessment.addAnnotationAtCaret(selectedValue.mistakeType(), withCustomMessage));
+        }
     }
 }
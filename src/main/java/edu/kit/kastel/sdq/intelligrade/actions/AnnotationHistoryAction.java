@@ -0,0 +1,88 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.actions;
+
+import java.util.Optional;
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAware;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
+import edu.kit.kastel.sdq.intelligrade.state.AnnotationHistory;
+import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Undoes/redoes the last annotation change of the active assessment.
+ * <p>
+ * The editors are read-only while grading, so this is separate from the undo of the IDE.
+ */
+public abstract class AnnotationHistoryAction extends AnAction implements DumbAware {
+    @Override
+    public @NonNull ActionUpdateThread getActionUpdateThread() {
+        // the history is only modified on the EDT
+        return ActionUpdateThread.EDT;
+    }
+
+    @Override
+    public void update(@NonNull AnActionEvent e) {
+        var presentation = e.getPresentation();
+        var assessment = PluginState.getInstance().getActiveAssessment();
+        if (e.getProject() == null || assessment.isEmpty()) {
+            presentation.setEnabledAndVisible(false);
+            return;
+        }
+
+        var description = this.getDescription(assessment.get().getHistory());
+        presentation.setVisible(true);
+        presentation.setEnabled(description.isPresent());
+        presentation.setText(description
+                .map(text -> this.getVerb() + " " + text)
+                .orElse(this.getVerb() + " Annotation Change"));
+    }
+
+    @Override
+    public void actionPerformed(@NonNull AnActionEvent e) {
+        PluginState.getInstance().getActiveAssessment().ifPresent(this::perform);
+    }
+
+    protected abstract String getVerb();
+
+    protected abstract Optional<String> getDescription(AnnotationHistory history);
+
+    protected abstract void perform(ActiveAssessment assessment);
+
+    public static class Undo extends AnnotationHistoryAction {
+        @Override
+        protected String getVerb() {
+            return "Undo";
+        }
+
+        @Override
+        protected Optional<String> getDescription(AnnotationHistory history) {
+            return history.getUndoDescription();
+        }
+
+        @Override
+        protected void perform(ActiveAssessment assessment) {
+            assessment.undo();
+        }
+    }
+
+    public static class Redo extends AnnotationHistoryAction {
+        @Override
+        protected String getVerb() {
+            return "Redo";
+        }
+
+        @Override
+        protected Optional<String> getDescription(AnnotationHistory history) {
+            return history.getRedoDescription();
+        }
+
+        @Override
+        protected void perform(ActiveAssessment assessment) {
+            assessment.redo();
+        }
+    }
+}
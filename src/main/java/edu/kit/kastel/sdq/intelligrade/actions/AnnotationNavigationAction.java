@@ -0,0 +1,98 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.actions;
+
+import java.util.Optional;
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.DumbAware;
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+import edu.kit.kastel.sdq.intelligrade.state.AnnotationNavigationIndex;
+import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Jumps from the caret to the next/previous annotation of the active assessment, across all files.
+ * If no editor is focused, the navigation starts at the beginning (or end) of the submission.
+ */
+public abstract class AnnotationNavigationAction extends AnAction implements DumbAware {
+    @Override
+    public @NonNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(@NonNull AnActionEvent e) {
+        e.getPresentation()
+                .setEnabledAndVisible(e.getProject() != null && PluginState.getInstance().isAssessing());
+    }
+
+    @Override
+    public void actionPerformed(@NonNull AnActionEvent e) {
+        var project = e.getProject();
+        var assessment = PluginState.getInstance().getActiveAssessment();
+        if (project == null || assessment.isEmpty()) {
+            return;
+        }
+
+        var index = assessment.get().getNavigationIndex();
+        Editor editor = e.getData(CommonDataKeys.EDITOR);
+        Optional<String> filePath = Optional.ofNullable(editor)
+                .map(Editor::getVirtualFile)
+                .flatMap(IntellijUtil::getAssignmentRelativePath);
+
+        Optional<Annotation> target;
+        if (filePath.isEmpty()) {
+            target = this.find(index, null, 0, 0);
+        } else {
+            var document = editor.getDocument();
+            int offset = editor.getCaretModel().getOffset();
+            int line = document.getLineNumber(offset);
+            int column = offset - document.getLineStartOffset(line);
+            target = this.find(index, filePath.get(), line, column);
+        }
+
+        if (target.isEmpty()) {
+            return;
+        }
+
+        var annotation = target.get();
+        var file = IntellijUtil.getAnnotationFile(annotation);
+        var document = FileDocumentManager.getInstance().getDocument(file);
+        if (document == null) {
+            return;
+        }
+
+        // the location might be outdated if the file has been edited, so the offset is clamped to the document
+        int line = Math.min(annotation.getStartLine(), Math.max(document.getLineCount() - 1, 0));
+        int lineStart = document.getLineStartOffset(line);
+        int column = annotation.getLocation().start().column().orElse(0);
+        int offset = Math.min(lineStart + column, document.getLineEndOffset(line));
+
+        FileEditorManager.getInstance(project).openTextEditor(new OpenFileDescriptor(project, file, offset), true);
+    }
+
+    protected abstract Optional<Annotation> find(
+            AnnotationNavigationIndex index, String filePath, int line, int column);
+
+    public static class Next extends AnnotationNavigationAction {
+        @Override
+        protected Optional<Annotation> find(AnnotationNavigationIndex index, String filePath, int line, int column) {
+            return index.findNext(filePath, line, column);
+        }
+    }
+
+    public static class Previous extends AnnotationNavigationAction {
+        @Override
+        protected Optional<Annotation> find(AnnotationNavigationIndex index, String filePath, int line, int column) {
+            return index.findPrevious(filePath, line, column);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.actions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
+import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import edu.kit.kastel.sdq.intelligrade.templatediff.AnnotationRemapper;
+import edu.kit.kastel.sdq.intelligrade.templatediff.CommitDiff;
+import edu.kit.kastel.sdq.intelligrade.utils.ArtemisUtils;
+import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Moves the annotations that were made on the commit of the assessed submission to the corresponding lines
+ * of the checked-out commit, e.g. after a newer commit of the student has been checked out.
+ * <p>
+ * Annotations on lines that the student changed are moved to the code that replaced them,
+ * and are marked in the annotation table until the tutor checked them.
+ */
+public class RemapAnnotationsAction extends AnAction {
+    private static final Logger LOG = Logger.getInstance(RemapAnnotationsAction.class);
+
+    @Override
+    public @NonNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(@NonNull AnActionEvent e) {
+        var assessment = PluginState.getInstance().getActiveAssessment();
+        e.getPresentation().setVisible(e.getProject() != null && assessment.isPresent());
+        e.getPresentation()
+                .setEnabled(e.getProject() != null
+                        && assessment.isPresent()
+                        && !assessment.get().isReview()
+                        && isOtherCommitCheckedOut(assessment.get()));
+    }
+
+    @Override
+    public void actionPerformed(@NonNull AnActionEvent e) {
+        var project = e.getProject();
+        var assessment = PluginState.getInstance().getActiveAssessment();
+        if (project == null || assessment.isEmpty()) {
+            return;
+        }
+
+        var sourceCommit = getSubmissionCommit(assessment.get());
+        var assignmentDirectory = getAssignmentDirectory();
+        CommitDiff diff;
+        try {
+            diff = ProgressManager.getInstance()
+                    .runProcessWithProgressSynchronously(
+                            () -> CommitDiff.compute(assignmentDirectory, sourceCommit),
+                            "Comparing commits",
+                            false,
+                            project);
+        } catch (IOException ex) {
+            LOG.warn(ex);
+            ArtemisUtils.displayGenericErrorBalloon("Could not compare the commits", ex.getMessage());
+            return;
+        }
+
+        var result = AnnotationRemapper.remap(assessment.get().getAssessment().getAnnotations(true), diff);
+        int moved = assessment.get().moveAnnotations(result.newLocations(), result.needsReview());
+        showRemapped(assessment.get(), moved);
+    }
+
+    /**
+     * Tells the tutor how many annotations have been remapped, and whether some of them have to be checked.
+     *
+     * @param assessment the assessment the annotations have been remapped in
+     * @param moved the number of annotations that have been moved
+     */
+    public static void showRemapped(ActiveAssessment assessment, int moved) {
+        if (!assessment.hasAnnotationsToCheck()) {
+            ArtemisUtils.displayGenericInfoBalloon("Annotations remapped", "Moved %d annotations.".formatted(moved));
+            return;
+        }
+
+        // The annotations stay marked in the table, the tutor has to decide whether they still apply
+        String message = "Moved %d annotations. Some annotations are on lines that the student changed or deleted, "
+                + "they are marked with ! in the annotation table.";
+        ArtemisUtils.displayGenericWarningBalloon("Annotations need review", message.formatted(moved));
+    }
+
+    private static boolean isOtherCommitCheckedOut(ActiveAssessment assessment) {
+        var submissionCommit = getSubmissionCommit(assessment);
+        if (submissionCommit == null) {
+            return false;
+        }
+
+        try {
+            return !submissionCommit.equals(CommitDiff.readHeadCommit(getAssignmentDirectory()));
+        } catch (IOException ex) {
+            LOG.debug(ex);
+            return false;
+        }
+    }
+
+    private static String getSubmissionCommit(ActiveAssessment assessment) {
+        return assessment.getAssessment().getSubmission().getCommitHash();
+    }
+
+    private static Path getAssignmentDirectory() {
+        return IntellijUtil.getProjectRootDirectory().resolve(ActiveAssessment.ASSIGNMENT_SUB_PATH);
+    }
+}
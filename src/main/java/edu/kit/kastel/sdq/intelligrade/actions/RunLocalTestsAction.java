@@ -0,0 +1,29 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.actions;
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import edu.kit.kastel.sdq.intelligrade.testrunner.LocalTestRunner;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Runs the tests of the checked-out submission locally, the results are shown in the test results panel.
+ */
+public class RunLocalTestsAction extends AnAction {
+    @Override
+    public @NonNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(@NonNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null && PluginState.getInstance().isAssessing());
+    }
+
+    @Override
+    public void actionPerformed(@NonNull AnActionEvent e) {
+        LocalTestRunner.getInstance().runTests();
+    }
+}
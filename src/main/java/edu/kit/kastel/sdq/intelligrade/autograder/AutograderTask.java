@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.autograder;
 
 import java.io.IOException;
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import com.intellij.icons.AllIcons;
@@ -36,6 +37,8 @@ import org.jetbrains.annotations.NotNull;
 
 public final class AutograderTask extends Task.Backgroundable {
     private static final Logger LOG = Logger.getInstance(AutograderTask.class);
+    // The number of autograder tasks that are currently running, other background work waits for them
+    private static final AtomicInteger RUNNING_TASKS = new AtomicInteger(0);
 
     private final Assessment assessment;
     private final ClonedProgrammingSubmission clonedSubmission;
@@ -56,7 +59,20 @@ public final class AutograderTask extends Task.Backgroundable {
         this.onSuccessCallback = onSuccess;
     }
 
+    public static boolean isRunning() {
+        return RUNNING_TASKS.get() > 0;
+    }
+
     public void run(@NotNull ProgressIndicator indicator) {
+        RUNNING_TASKS.incrementAndGet();
+        try {
+            this.runAutograder(indicator);
+        } finally {
+            RUNNING_TASKS.decrementAndGet();
+        }
+    }
+
+    private void runAutograder(ProgressIndicator indicator) {
         indicator.setIndeterminate(true);
 
         var settings = ArtemisSettingsState.getInstance();
@@ -1,42 +1,80 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis;
 
 import java.awt.EventQueue;
 import java.awt.event.InputEvent;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import javax.swing.JButton;
-import javax.swing.tree.TreePath;
+import javax.swing.event.DocumentEvent;
 
+import com.intellij.DynamicBundle;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
 import com.intellij.openapi.ui.popup.JBPopupFactory;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.ui.AnActionButton;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.PopupHandler;
 import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.SearchTextField;
+import com.intellij.ui.SimpleListCellRenderer;
+import com.intellij.ui.TreeTableSpeedSearch;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBPanel;
 import com.intellij.ui.components.JBTextField;
+import com.intellij.util.Alarm;
+import edu.kit.kastel.sdq.artemis4j.client.AnnotationSource;
 import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
 import edu.kit.kastel.sdq.artemis4j.grading.User;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.RatingGroup;
+import edu.kit.kastel.sdq.intelligrade.extensions.guis.table.AnnotationFilter;
+import edu.kit.kastel.sdq.intelligrade.extensions.guis.table.AnnotationSearchIndex;
 import edu.kit.kastel.sdq.intelligrade.extensions.guis.table.AnnotationsTableModel;
 import edu.kit.kastel.sdq.intelligrade.extensions.guis.table.AnnotationsTreeTable;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
+import edu.kit.kastel.sdq.intelligrade.state.AnnotationChangeSet;
 import edu.kit.kastel.sdq.intelligrade.state.PluginState;
 import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
 import net.miginfocom.swing.MigLayout;
 import org.jspecify.annotations.NonNull;
 
 public class AnnotationsListPanel extends SimpleToolWindowPanel {
+    private static final Locale LOCALE = DynamicBundle.getLocale();
+    // How long to wait after the last keystroke in the search field before filtering the annotations
+    private static final int FILTER_DELAY_MS = 200;
+
     private final AnnotationsTableModel model;
     private final AnnotationsTreeTable table;
 
+    private final SearchTextField searchField;
+    private final ComboBox<AnnotationSource> sourceFilter;
+    private final ComboBox<RatingGroup> ratingGroupFilter;
+    private final ComboBox<AnnotationFilter.SuppressionFilter> suppressionFilter;
+
+    // The filter is evaluated on a pooled thread, only the result is applied to the model on the EDT.
+    private final Alarm filterAlarm;
+    private final AnnotationSearchIndex searchIndex = new AnnotationSearchIndex();
+    // All annotations of the assessment, the model only contains the ones that match the filter
+    private List<Annotation> allAnnotations = List.of();
+    // Incremented for every filter request, so that outdated results are not applied
+    private int filterGeneration = 0;
+    // The generation of the filter result that is shown in the model
+    private int shownGeneration = 0;
+
     public static AnnotationsListPanel getPanel() {
         var toolWindow =
                 ToolWindowManager.getInstance(IntellijUtil.getActiveProject()).getToolWindow("Annotations");
@@ -44,43 +82,195 @@ public class AnnotationsListPanel extends SimpleToolWindowPanel {
                 toolWindow.getContentManager().getContent(0).getComponent();
     }
 
-    public AnnotationsListPanel() {
+    public AnnotationsListPanel(Disposable parentDisposable) {
         super(true, true);
 
         model = new AnnotationsTableModel();
         table = new AnnotationsTreeTable(model);
+        filterAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, parentDisposable);
+
+        // Typing while the table has the focus jumps to the first matching mistake type
+        TreeTableSpeedSearch.installOn(table, path -> path.getLastPathComponent().toString());
 
         setContent(ScrollPaneFactory.createScrollPane(table));
 
+        searchField = new SearchTextField(false);
+        searchField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NonNull DocumentEvent documentEvent) {
+                applyFilter(FILTER_DELAY_MS);
+            }
+        });
+
+        sourceFilter = new ComboBox<>();
+        sourceFilter.setRenderer(SimpleListCellRenderer.create("All sources", AnnotationSource::toString));
+        sourceFilter.addItem(null);
+        for (var source : AnnotationSource.values()) {
+            sourceFilter.addItem(source);
+        }
+        sourceFilter.addActionListener(a -> applyFilter(0));
+
+        ratingGroupFilter = new ComboBox<>();
+        ratingGroupFilter.setRenderer(SimpleListCellRenderer.create(
+                "All rating groups", group -> group.getDisplayName().translateTo(LOCALE)));
+        ratingGroupFilter.addItem(null);
+        ratingGroupFilter.addActionListener(a -> applyFilter(0));
+
+        suppressionFilter = new ComboBox<>(AnnotationFilter.SuppressionFilter.values());
+        suppressionFilter.addActionListener(a -> applyFilter(0));
+
+        var filterPanel = new JBPanel<>(new MigLayout("insets 2, fillx", "[grow] [] [] []"));
+        filterPanel.add(searchField, "growx");
+        filterPanel.add(sourceFilter);
+        filterPanel.add(ratingGroupFilter);
+        filterPanel.add(suppressionFilter);
+        setToolbar(filterPanel);
+
         // Add the right-click menu
-        addPopupMenu();
+        addPopupMenu(parentDisposable);
 
         PluginState.getInstance()
                 .registerAssessmentStartedListener(
-                        assessment -> assessment.registerAnnotationsUpdatedListener(annotations -> {
-                            // save the currently expanded paths (so they stay open after the annotations change)
-                            Set<TreePath> expandedPaths =
-                                    new HashSet<>(table.getTree().getExpandedPaths());
-                            model.setAnnotations(annotations);
-
-                            table.revalidate();
-                            table.updateUI();
-
-                            // restore the expanded paths
-                            table.getTree().expandPaths(expandedPaths);
-                        }));
-
-        PluginState.getInstance().registerAssessmentClosedListener(() -> {
-            model.setAnnotations(List.of());
-            table.updateUI();
-        });
+                        assessment -> showAssessment(assessment, parentDisposable), parentDisposable);
+
+        PluginState.getInstance().registerAssessmentClosedListener(this::clearAssessment, parentDisposable);
+    }
+
+    private void showAssessment(ActiveAssessment assessment, Disposable parentDisposable) {
+        ratingGroupFilter.removeAllItems();
+        ratingGroupFilter.addItem(null);
+        for (var ratingGroup : assessment.getGradingConfig().getRatingGroups()) {
+            ratingGroupFilter.addItem(ratingGroup);
+        }
+
+        assessment.registerAnnotationChangeListener(this::updateAnnotations, parentDisposable);
+    }
+
+    private void clearAssessment() {
+        ratingGroupFilter.removeAllItems();
+        ratingGroupFilter.addItem(null);
+
+        this.allAnnotations = List.of();
+        this.searchIndex.clear();
+        applyFilter(0);
+    }
+
+    private void updateAnnotations(AnnotationChangeSet changes) {
+        this.allAnnotations = changes.annotations();
+        this.searchIndex.removeAll(changes.removed());
+
+        if (this.shownGeneration != this.filterGeneration) {
+            // a filter is still being evaluated on the old annotations, so it has to be evaluated again
+            applyFilter(0);
+            return;
+        }
+
+        // only the changed annotations have to be checked against the filter
+        var filter = currentFilter();
+        if (filter.isEmpty()) {
+            model.applyChanges(changes.added(), changes.removed(), changes.modified());
+        } else {
+            List<Annotation> added = new ArrayList<>(filter.apply(changes.added(), searchIndex));
+            List<Annotation> removed = new ArrayList<>(changes.removed());
+            List<Annotation> modified = new ArrayList<>();
+
+            // a modified annotation might match the filter now, or no longer match it
+            Set<Annotation> matchingModified = Collections.newSetFromMap(new IdentityHashMap<>());
+            matchingModified.addAll(filter.apply(changes.modified(), searchIndex));
+            for (Annotation annotation : changes.modified()) {
+                boolean isShown = model.containsAnnotation(annotation);
+                boolean matches = matchingModified.contains(annotation);
+                if (isShown && matches) {
+                    modified.add(annotation);
+                } else if (isShown) {
+                    removed.add(annotation);
+                } else if (matches) {
+                    added.add(annotation);
+                }
+            }
+
+            model.applyChanges(added, removed, modified);
+        }
+
+        repaintReviewMarkers();
+    }
+
+    private AnnotationFilter currentFilter() {
+        return new AnnotationFilter(
+                searchField.getText(),
+                (AnnotationSource) sourceFilter.getSelectedItem(),
+                (RatingGroup) ratingGroupFilter.getSelectedItem(),
+                (AnnotationFilter.SuppressionFilter) suppressionFilter.getSelectedItem());
+    }
+
+    private void applyFilter(int delayMillis) {
+        var filter = currentFilter();
+        var annotations = this.allAnnotations;
+        int generation = ++this.filterGeneration;
+
+        filterAlarm.cancelAllRequests();
+        if (filter.isEmpty()) {
+            // nothing to compute, and applying it directly avoids a flicker when the filter is cleared
+            showFilteredAnnotations(generation, annotations);
+            return;
+        }
+
+        filterAlarm.addRequest(
+                () -> {
+                    var filtered = filter.apply(annotations, searchIndex);
+                    ApplicationManager.getApplication()
+                            .invokeLater(() -> showFilteredAnnotations(generation, filtered), ModalityState.any());
+                },
+                delayMillis);
+    }
+
+    private void showFilteredAnnotations(int generation, List<Annotation> annotations) {
+        if (generation != this.filterGeneration) {
+            // the filter or the annotations changed in the meantime
+            return;
+        }
+
+        this.shownGeneration = generation;
+
+        // The model only fires events for the rows that changed, so the expanded paths stay open
+        // and the table does not have to be rebuilt.
+        model.setAnnotations(annotations);
+
+        repaintReviewMarkers();
+    }
+
+    private void repaintReviewMarkers() {
+        // In review mode, a change of one annotation can change the review marker of its partner in the other round.
+        // The marks of annotations to check are set together with the change, but not on the changed rows.
+        if (PluginState.getInstance()
+                .getActiveAssessment()
+                .filter(assessment -> assessment.isReview() || assessment.hasAnnotationsToCheck())
+                .isPresent()) {
+            table.repaint();
+        }
     }
 
     public void selectAnnotation(Annotation annotation) {
+        if (!this.model.containsAnnotation(annotation)) {
+            // the annotation is hidden by the filter, so the filter is reset to show it
+            resetFilter();
+        }
+
         this.table.selectAnnotation(annotation);
     }
 
-    private void addPopupMenu() {
+    private void resetFilter() {
+        searchField.setText("");
+        sourceFilter.setSelectedItem(null);
+        ratingGroupFilter.setSelectedItem(null);
+        suppressionFilter.setSelectedItem(AnnotationFilter.SuppressionFilter.ALL);
+
+        // intermediate filters might have been scheduled while the combo boxes were reset
+        filterAlarm.cancelAllRequests();
+        showFilteredAnnotations(++this.filterGeneration, this.allAnnotations);
+    }
+
+    private void addPopupMenu(Disposable parentDisposable) {
         AnActionButton restoreButton;
         var group = new DefaultActionGroup();
 
@@ -110,6 +300,33 @@ public class AnnotationsListPanel extends SimpleToolWindowPanel {
         };
         group.addAction(deleteButton);
 
+        var checkedButton = new AnActionButton("Mark as Checked") {
+            @Override
+            public void actionPerformed(@NonNull AnActionEvent e) {
+                var assessment = PluginState.getInstance().getActiveAssessment();
+                if (assessment.isPresent()) {
+                    assessment.get().markAsChecked(table.getSelectedAnnotations());
+                    table.repaint();
+                }
+            }
+
+            @Override
+            public void updateButton(@NonNull AnActionEvent e) {
+                var selected = table.getSelectedAnnotations();
+                e.getPresentation()
+                        .setEnabledAndVisible(PluginState.getInstance()
+                                .getActiveAssessment()
+                                .filter(assessment -> selected.stream().anyMatch(assessment::needsCheck))
+                                .isPresent());
+            }
+
+            @Override
+            public @NonNull ActionUpdateThread getActionUpdateThread() {
+                return ActionUpdateThread.EDT;
+            }
+        };
+        group.addAction(checkedButton);
+
         restoreButton = new AnActionButton("Restore") {
             @Override
             public void actionPerformed(@NonNull AnActionEvent e) {
@@ -122,13 +339,16 @@ public class AnnotationsListPanel extends SimpleToolWindowPanel {
             }
         };
         // only show the restore button in review mode
-        PluginState.getInstance().registerAssessmentStartedListener(assessment -> {
-            if (assessment.isReview()) {
-                group.addAction(restoreButton);
-            } else {
-                group.remove(restoreButton);
-            }
-        });
+        PluginState.getInstance()
+                .registerAssessmentStartedListener(
+                        assessment -> {
+                            if (assessment.isReview()) {
+                                group.addAction(restoreButton);
+                            } else {
+                                group.remove(restoreButton);
+                            }
+                        },
+                        parentDisposable);
 
         // Adds a debug button to the right-click menu in the table.
         //
@@ -1,30 +1,33 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis;
 
 import java.awt.Color;
-import java.awt.Component;
+import java.awt.Cursor;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.font.TextAttribute;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
 
 import javax.swing.JButton;
-import javax.swing.JComponent;
-import javax.swing.JLayer;
 import javax.swing.JPanel;
 import javax.swing.ScrollPaneConstants;
-import javax.swing.plaf.LayerUI;
 
 import com.intellij.DynamicBundle;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.roots.ui.componentsList.components.ScrollablePanel;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
 import com.intellij.ui.JBColor;
@@ -34,7 +37,6 @@ import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBPanel;
 import com.intellij.util.ui.JBFont;
 import com.intellij.util.ui.JBUI;
-import edu.kit.kastel.sdq.artemis4j.grading.Assessment;
 import edu.kit.kastel.sdq.artemis4j.grading.penalty.CustomPenaltyRule;
 import edu.kit.kastel.sdq.artemis4j.grading.penalty.MistakeType;
 import edu.kit.kastel.sdq.artemis4j.grading.penalty.Points;
@@ -53,15 +55,21 @@ import net.miginfocom.swing.MigLayout;
 
 public class AssessmentPanel extends SimpleToolWindowPanel {
     private static final Locale LOCALE = DynamicBundle.getLocale();
+    // Above this number of mistake types, the rating groups are collapsed by default
+    private static final int MAX_EXPANDED_MISTAKE_TYPES = 40;
 
     private final JPanel content;
     private final JBLabel pointsLabel;
-    private final Map<RatingGroup, TitledSeparator> ratingGroupBorders = new IdentityHashMap<>();
-    private final List<AssessmentButton> assessmentButtons = new ArrayList<>();
+    private final Map<RatingGroup, RatingGroupSection> ratingGroupSections = new IdentityHashMap<>();
+    private final Map<MistakeType, MistakeTypeButton> assessmentButtons = new IdentityHashMap<>();
+    private String gradingConfigKey = "";
+    private final Disposable parentDisposable;
 
-    public AssessmentPanel() {
+    public AssessmentPanel(Disposable parentDisposable) {
         super(true, true);
 
+        this.parentDisposable = parentDisposable;
+
         content = new ScrollablePanel(new MigLayout("wrap 1", "[grow]"));
         setContent(ScrollPaneFactory.createScrollPane(
                 content,
@@ -71,63 +79,92 @@ public class AssessmentPanel extends SimpleToolWindowPanel {
         pointsLabel = new JBLabel();
 
         this.showNoActiveAssessment();
-        PluginState.getInstance().registerAssessmentStartedListener(assessment -> {
-            content.removeAll();
-
-            content.add(pointsLabel, "alignx center");
-
-            var infoLabel = TextBuilder.immutable("Hold ")
-                    .foreground(JBColor.GRAY)
-                    .addColoredText(
-                            KeyPress.of(KeyEvent.VK_CONTROL).toString(), JBUI.CurrentTheme.Link.Foreground.ENABLED)
-                    .addText(", while pressing a button, to add a custom message")
-                    .horizontalAlignment(TextBuilder.Alignment.CENTER)
-                    .text();
-            content.add(infoLabel, "alignx center");
-
-            assessment.registerAnnotationsUpdatedListener(annotations -> {
-                var a = assessment.getAssessment();
-                var testPoints = a.calculateTotalPointsOfTests();
-                var annotationPoints = a.calculateTotalPointsOfAnnotations();
-                var totalPoints = a.calculateTotalPoints();
-                var maxPoints = a.getMaxPoints();
-                pointsLabel.setText(getAssessmentPointsTitle(testPoints, annotationPoints, totalPoints, maxPoints));
-            });
-
-            this.createMistakeButtons(assessment);
-        });
-        PluginState.getInstance().registerAssessmentClosedListener(this::showNoActiveAssessment);
+        PluginState.getInstance().registerAssessmentStartedListener(this::showAssessment, parentDisposable);
+        PluginState.getInstance().registerAssessmentClosedListener(this::showNoActiveAssessment, parentDisposable);
+    }
+
+    private void showAssessment(ActiveAssessment assessment) {
+        content.removeAll();
+
+        content.add(pointsLabel, "alignx center");
+
+        var infoLabel = TextBuilder.immutable("Hold ")
+                .foreground(JBColor.GRAY)
+                .addColoredText(KeyPress.of(KeyEvent.VK_CONTROL).toString(), JBUI.CurrentTheme.Link.Foreground.ENABLED)
+                .addText(", while pressing a button, to add a custom message")
+                .horizontalAlignment(TextBuilder.Alignment.CENTER)
+                .text();
+        content.add(infoLabel, "alignx center");
+
+        // The totals are cached by the score model, they are only recalculated when a rating group changed
+        this.updatePointsLabel(assessment);
+        assessment.registerScoreChangedListener(
+                changes -> {
+                    if (changes.totalsChanged()) {
+                        this.updatePointsLabel(assessment);
+                    }
+                },
+                this.parentDisposable);
+
+        this.createMistakeButtons(assessment);
     }
 
-    private Component addGroupPanel(
+    private RatingGroupSection addGroupSection(
             ActiveAssessment assessment, RatingGroup ratingGroup, List<MistakeType> mistakeTypes) {
-        var separator = new TitledSeparator(getRatingGroupTitle(assessment.getAssessment(), ratingGroup));
+        var separator = new TitledSeparator(getRatingGroupTitle(assessment, ratingGroup));
         separator.setTitleFont(JBFont.h3().asBold());
-        this.ratingGroupBorders.put(ratingGroup, separator);
+        separator.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         this.content.add(separator, "growx");
 
         var panel = new JBPanel<>(new FlowWrapLayout(5, "fill, gap 0"));
-        for (var mistakeType : mistakeTypes) {
-            var button = ExercisePanel.createWrappingButton(
-                    mistakeType.getButtonText().translateTo(LOCALE));
+        this.content.add(panel, "growx, hidemode 3");
+
+        var section = new RatingGroupSection(assessment, ratingGroup, mistakeTypes, separator, panel);
+        separator.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                setExpanded(section, !section.isExpanded);
+
+                // only the choices of the user are remembered, so that the default can still apply to the others
+                ArtemisSettingsState.getInstance()
+                        .setRatingGroupCollapsed(gradingConfigKey, section.ratingGroup.getId(), !section.isExpanded);
+            }
+        });
+        this.ratingGroupSections.put(ratingGroup, section);
+
+        return section;
+    }
+
+    private void setExpanded(RatingGroupSection section, boolean isExpanded) {
+        section.isExpanded = isExpanded;
+        section.separator.getLabel().setIcon(isExpanded ? AllIcons.General.ArrowDown : AllIcons.General.ArrowRight);
+        section.panel.setVisible(isExpanded);
+
+        if (isExpanded && !section.isBuilt) {
+            this.buildButtons(section);
+        }
+
+        this.content.revalidate();
+        this.content.repaint();
+    }
+
+    /**
+     * Creates the buttons of the section. This is only done when the section is expanded for the first time,
+     * so that collapsed rating groups of large grading configs do not slow down starting an assessment.
+     *
+     * @param section the section to build
+     */
+    private void buildButtons(RatingGroupSection section) {
+        var assessment = section.assessment;
+        for (var mistakeType : section.mistakeTypes) {
+            var button = new MistakeTypeButton(mistakeType.getButtonText().translateTo(LOCALE));
 
             // no tooltip for custom comment
             if (!mistakeType.isCustomAnnotation()) {
                 button.setToolTipText(mistakeType.getMessage().translateTo(LOCALE));
             }
             button.setMargin(JBUI.emptyInsets());
-
-            var iconRenderer = new MistakeTypeIconRenderer();
-            var layer = new LayerUI<>() {
-                @Override
-                public void paint(Graphics g, JComponent c) {
-                    super.paint(g, c);
-                    iconRenderer.paint((Graphics2D) g, c);
-                }
-            };
-            JPanel buttonPanel = new JPanel(new MigLayout("fill, insets 0"));
-            buttonPanel.add(button, "grow");
-            panel.add(new JLayer<>(buttonPanel, layer), "grow, sizegroup main");
+            section.panel.add(button, "grow, sizegroup main");
 
             button.addActionListener(a -> assessment.addAnnotationAtCaret(
                     mistakeType, (a.getModifiers() & ActionEvent.CTRL_MASK) == ActionEvent.CTRL_MASK));
@@ -135,10 +172,11 @@ public class AssessmentPanel extends SimpleToolWindowPanel {
             // All buttons are disabled in review mode
             button.setEnabled(!assessment.isReview());
 
-            this.assessmentButtons.add(new AssessmentButton(mistakeType, button, iconRenderer));
+            this.assessmentButtons.put(mistakeType, button);
         }
 
-        return panel;
+        section.isBuilt = true;
+        this.updateButtonIcons(assessment, section.mistakeTypes);
     }
 
     private static List<MistakeType> getDirectMistakeTypes(RatingGroup ratingGroup) {
@@ -163,7 +201,24 @@ public class AssessmentPanel extends SimpleToolWindowPanel {
     }
 
     private void createMistakeButtons(ActiveAssessment assessment) {
-        for (var ratingGroup : assessment.getGradingConfig().getRatingGroups()) {
+        // the collapsed state is remembered per grading config
+        this.gradingConfigKey = Objects.requireNonNullElse(
+                ArtemisSettingsState.getInstance().getSelectedGradingConfigPath(), "");
+        Set<String> collapsedGroups =
+                ArtemisSettingsState.getInstance().getCollapsedRatingGroups(this.gradingConfigKey);
+        Set<String> expandedGroups =
+                ArtemisSettingsState.getInstance().getExpandedRatingGroups(this.gradingConfigKey);
+
+        // For large grading configs, the sections are collapsed until the user expands them,
+        // so that their buttons are only created when they are needed.
+        var gradingConfig = assessment.getGradingConfig();
+        int numberOfMistakeTypes = 0;
+        for (var ratingGroup : gradingConfig.getRatingGroups()) {
+            numberOfMistakeTypes += ratingGroup.getAllMistakeTypes().size();
+        }
+        boolean isExpandedByDefault = numberOfMistakeTypes <= MAX_EXPANDED_MISTAKE_TYPES;
+
+        for (var ratingGroup : gradingConfig.getRatingGroups()) {
             if (ratingGroup.getAllMistakeTypes().isEmpty()) {
                 continue;
             }
@@ -174,40 +229,58 @@ public class AssessmentPanel extends SimpleToolWindowPanel {
                     continue;
                 }
 
-                var panel = addGroupPanel(assessment, group, mistakeTypes);
-                this.content.add(panel, "growx");
+                var section = addGroupSection(assessment, group, mistakeTypes);
+                boolean isExpanded = isExpandedByDefault
+                        ? !collapsedGroups.contains(group.getId())
+                        : expandedGroups.contains(group.getId());
+                this.setExpanded(section, isExpanded);
             }
         }
 
-        assessment.registerAnnotationsUpdatedListener(annotations -> {
-            var a = assessment.getAssessment();
-            updateRatingGroupTitles(a);
-            updateButtonIcons(a);
-        });
+        // Only the buttons of mistake types and the titles of rating groups whose points changed have to be updated
+        assessment.registerScoreChangedListener(
+                changes -> {
+                    updateRatingGroupTitles(assessment, changes.ratingGroups());
+                    updateButtonIcons(assessment, changes.mistakeTypes());
+                },
+                this.parentDisposable);
 
         this.updateUI();
     }
 
-    private void updateRatingGroupTitles(Assessment assessment) {
-        for (var entry : this.ratingGroupBorders.entrySet()) {
-            var ratingGroup = entry.getKey();
-            var separator = entry.getValue();
-            separator.setText(getRatingGroupTitle(assessment, ratingGroup));
+    private void updatePointsLabel(ActiveAssessment assessment) {
+        var totals = assessment.getScoreModel().getTotals();
+        pointsLabel.setText(getAssessmentPointsTitle(
+                totals.testPoints(), totals.annotationPoints(), totals.totalPoints(), totals.maxPoints()));
+    }
+
+    private void updateRatingGroupTitles(ActiveAssessment assessment, Collection<RatingGroup> ratingGroups) {
+        for (var ratingGroup : ratingGroups) {
+            // parent groups without direct mistake types have no separator
+            var section = this.ratingGroupSections.get(ratingGroup);
+            if (section != null) {
+                section.separator.setText(getRatingGroupTitle(assessment, ratingGroup));
+            }
         }
     }
 
-    private void updateButtonIcons(Assessment assessment) {
-        for (AssessmentButton assessmentButton : this.assessmentButtons) {
-            var settings = ArtemisSettingsState.getInstance();
-            var mistakeType = assessmentButton.mistakeType();
+    private void updateButtonIcons(ActiveAssessment assessment, Collection<MistakeType> mistakeTypes) {
+        var settings = ArtemisSettingsState.getInstance();
+        var scoreModel = assessment.getScoreModel();
+
+        for (MistakeType mistakeType : mistakeTypes) {
+            // the buttons of collapsed sections are only created when they are expanded
+            var button = this.assessmentButtons.get(mistakeType);
+            if (button == null) {
+                continue;
+            }
 
             StringBuilder iconText = new StringBuilder();
             ThemeColor color;
             Font font = JBFont.regular();
 
             if (mistakeType.getReporting().shouldScore()) {
-                int count = (int)
-                        assessment.streamAllAnnotations(mistakeType, false).count();
+                int count = scoreModel.getCount(mistakeType);
                 var rule = mistakeType.getRule();
 
                 switch (rule) {
@@ -230,27 +303,35 @@ public class AssessmentPanel extends SimpleToolWindowPanel {
                     }
                 }
 
-                // find out how many points this button subtracts
-                Optional<Points> pointsSubtractedByButton = assessment.calculatePointsForMistakeType(mistakeType);
-
                 // annotate the amount of points subtracted by this button
-                pointsSubtractedByButton.ifPresentOrElse(
-                        points -> iconText.append(" | ").append(points.score()).append("P"),
-                        () -> iconText.append(" | 0P"));
-
+                Points pointsSubtractedByButton = scoreModel.getPoints(mistakeType);
+                if (pointsSubtractedByButton != null) {
+                    iconText.append(" | ").append(pointsSubtractedByButton.score()).append("P");
+                } else {
+                    iconText.append(" | 0P");
+                }
             } else {
                 iconText.append("R");
                 color = settings.getReportingAssessmentButtonColor();
             }
 
-            assessmentButton.iconRenderer().update(iconText.toString(), color.toColor());
-            assessmentButton.button().setForeground(color.toColor());
-            assessmentButton.button().setFont(font);
+            // Only repaint the buttons whose badge actually changed
+            if (button.updateBadge(iconText.toString(), color.toColor())) {
+                button.repaint();
+            }
+
+            if (!color.toColor().equals(button.getForeground())) {
+                button.setForeground(color.toColor());
+            }
+
+            if (!font.equals(button.getFont())) {
+                button.setFont(font);
+            }
         }
     }
 
     private void showNoActiveAssessment() {
-        this.ratingGroupBorders.clear();
+        this.ratingGroupSections.clear();
         this.assessmentButtons.clear();
 
         content.removeAll();
@@ -258,8 +339,8 @@ public class AssessmentPanel extends SimpleToolWindowPanel {
         this.updateUI();
     }
 
-    private String getRatingGroupTitle(Assessment assessment, RatingGroup ratingGroup) {
-        var points = assessment.calculatePointsForRatingGroup(ratingGroup);
+    private String getRatingGroupTitle(ActiveAssessment assessment, RatingGroup ratingGroup) {
+        var points = assessment.getScoreModel().getPoints(ratingGroup);
         return "%s (%.1f of [%.1f, %.1f])"
                 .formatted(
                         ratingGroup.getDisplayName().translateTo(LOCALE),
@@ -293,46 +374,94 @@ public class AssessmentPanel extends SimpleToolWindowPanel {
         }
     }
 
-    private static class MistakeTypeIconRenderer {
-        private final JBFont font;
+    /**
+     * A button that paints a badge with the number of annotations and the points of its mistake type
+     * in its top right corner.
+     * <p>
+     * The badge is painted by the button itself, so no additional components are needed per button.
+     */
+    private static final class MistakeTypeButton extends JButton {
+        private final JBFont badgeFont = JBFont.regular();
 
-        private String text;
-        private Color bgColor;
+        private String badgeText = "";
+        private Color badgeColor = JBColor.foreground();
 
-        private int textWidth;
+        private int textWidth = -1;
         private int baselineHeight;
         private int textHeight;
 
-        public MistakeTypeIconRenderer() {
-            this.font = JBFont.regular();
-            this.update("", JBColor.foreground());
+        private MistakeTypeButton(String text) {
+            super(ExercisePanel.toWrappingText(text));
         }
 
-        public void paint(Graphics2D g, JComponent component) {
-            g.setFont(this.font);
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
 
-            if (textWidth < 0) {
-                textWidth = g.getFontMetrics().stringWidth(text);
-                baselineHeight = g.getFontMetrics().getMaxAscent();
-                textHeight =
-                        g.getFontMetrics().getMaxAscent() + g.getFontMetrics().getMaxDescent();
-            }
+            var g2d = (Graphics2D) g.create();
+            try {
+                g2d.setFont(this.badgeFont);
+
+                if (textWidth < 0) {
+                    var metrics = g2d.getFontMetrics();
+                    textWidth = metrics.stringWidth(badgeText);
+                    baselineHeight = metrics.getMaxAscent();
+                    textHeight = metrics.getMaxAscent() + metrics.getMaxDescent();
+                }
 
-            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-            g.setColor(bgColor);
-            g.fillRoundRect(component.getWidth() - textWidth - 5, 0, textWidth + 2, textHeight, 2, 2);
+                g2d.setColor(badgeColor);
+                g2d.fillRoundRect(getWidth() - textWidth - 5, 0, textWidth + 2, textHeight, 2, 2);
 
-            g.setColor(JBColor.background());
-            g.drawString(text, component.getWidth() - textWidth - 4, baselineHeight);
+                g2d.setColor(JBColor.background());
+                g2d.drawString(badgeText, getWidth() - textWidth - 4, baselineHeight);
+            } finally {
+                g2d.dispose();
+            }
         }
 
-        private void update(String text, Color bgColor) {
-            this.text = text;
-            this.bgColor = bgColor;
+        /**
+         * Changes the text and color of the badge.
+         *
+         * @return true if the badge changed and has to be repainted
+         */
+        private boolean updateBadge(String text, Color color) {
+            if (text.equals(this.badgeText) && color.equals(this.badgeColor)) {
+                return false;
+            }
+
+            this.badgeText = text;
+            this.badgeColor = color;
             this.textWidth = -1;
+            return true;
         }
     }
 
-    private record AssessmentButton(MistakeType mistakeType, JButton button, MistakeTypeIconRenderer iconRenderer) {}
+    /**
+     * The separator and the buttons of a rating group, the buttons are only created when the section
+     * is expanded for the first time.
+     */
+    private static final class RatingGroupSection {
+        private final ActiveAssessment assessment;
+        private final RatingGroup ratingGroup;
+        private final List<MistakeType> mistakeTypes;
+        private final TitledSeparator separator;
+        private final JPanel panel;
+        private boolean isExpanded;
+        private boolean isBuilt;
+
+        private RatingGroupSection(
+                ActiveAssessment assessment,
+                RatingGroup ratingGroup,
+                List<MistakeType> mistakeTypes,
+                TitledSeparator separator,
+                JPanel panel) {
+            this.assessment = assessment;
+            this.ratingGroup = ratingGroup;
+            this.mistakeTypes = mistakeTypes;
+            this.separator = separator;
+            this.panel = panel;
+        }
+    }
 }
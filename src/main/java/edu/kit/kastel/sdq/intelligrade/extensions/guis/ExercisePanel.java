@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis;
 
 import java.awt.event.ItemEvent;
@@ -160,14 +160,16 @@ public class ExercisePanel extends SimpleToolWindowPanel {
 
         courseSelector.addItemListener(this::handleCourseSelected);
 
-        PluginState.getInstance().registerConnectedListener(this::handleConnectionChange);
+        var disposable = toolWindow.getDisposable();
+        PluginState.getInstance().registerConnectedListener(this::handleConnectionChange, disposable);
 
-        PluginState.getInstance().registerAssessmentStartedListener(this::handleAssessmentStarted);
+        PluginState.getInstance().registerAssessmentStartedListener(this::handleAssessmentStarted, disposable);
 
-        PluginState.getInstance().registerAssessmentClosedListener(this::handleAssessmentClosed);
+        PluginState.getInstance().registerAssessmentClosedListener(this::handleAssessmentClosed, disposable);
 
         PluginState.getInstance()
-                .registerGradingConfigChangedListener(gradingConfigDTO -> this.handleGradingConfigChanged());
+                .registerGradingConfigChangedListener(
+                        gradingConfigDTO -> this.handleGradingConfigChanged(), disposable);
     }
 
     private void createGeneralPanel() {
@@ -245,7 +247,17 @@ public class ExercisePanel extends SimpleToolWindowPanel {
     }
 
     public static JButton createWrappingButton(String text) {
-        return new JButton("<html><body style='text-align: center;'>" + text + "</body></html>");
+        return new JButton(toWrappingText(text));
+    }
+
+    /**
+     * Wraps the text in html, so that a button with the text breaks it into multiple centered lines.
+     *
+     * @param text the text of the button
+     * @return the text that should be set on the button
+     */
+    public static String toWrappingText(String text) {
+        return "<html><body style='text-align: center;'>" + text + "</body></html>";
     }
 
     private void createAssessmentPanel() {
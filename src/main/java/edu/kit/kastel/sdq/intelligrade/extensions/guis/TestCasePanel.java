@@ -1,57 +1,378 @@
-/* Licensed under EPL-2.0 2024. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis;
 
-import javax.swing.JPanel;
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.swing.Icon;
+import javax.swing.JButton;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
 
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.OnePixelSplitter;
 import com.intellij.ui.ScrollPaneFactory;
-import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.SearchTextField;
+import com.intellij.ui.SimpleListCellRenderer;
 import com.intellij.ui.components.JBPanel;
+import com.intellij.ui.components.JBTextArea;
+import com.intellij.ui.table.JBTable;
+import edu.kit.kastel.sdq.artemis4j.grading.TestResult;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
 import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import edu.kit.kastel.sdq.intelligrade.testrunner.LocalTestResult;
+import edu.kit.kastel.sdq.intelligrade.testrunner.LocalTestRunner;
 import net.miginfocom.swing.MigLayout;
+import org.jetbrains.annotations.Nls;
+import org.jspecify.annotations.NonNull;
 
+/**
+ * Shows the test results of the assessment in a table.
+ * <p>
+ * The table only renders the visible rows, and the details of a test are only shown in the side pane
+ * when it is selected, so no components are created per test.
+ */
 public class TestCasePanel extends SimpleToolWindowPanel {
-    private final JPanel content;
+    private static final int STATUS_COLUMN = 0;
+    private static final int NAME_COLUMN = 1;
+    private static final int POINTS_COLUMN = 2;
 
-    public TestCasePanel() {
-        super(true, true);
+    private final TestResultsTableModel model = new TestResultsTableModel();
+    private final JBTable table;
+    private final TableRowSorter<TestResultsTableModel> sorter;
+    private final JBTextArea detailsArea;
 
-        this.content = new JBPanel<>(new MigLayout("wrap 3, gapx 10px, gapy 5px", "[][][]"));
+    private final SearchTextField searchField;
+    private final ComboBox<TestStatus> statusFilter;
+    private final JButton rerunSelectedTestsButton;
 
-        setContent(ScrollPaneFactory.createScrollPane(content));
+    /**
+     * The status of a test. The order is the order in which the tests are sorted, so failed tests come first.
+     */
+    private enum TestStatus {
+        FAILED("Failed", AllIcons.RunConfigurations.TestFailed),
+        UNKNOWN("Unknown", AllIcons.RunConfigurations.TestUnknown),
+        PASSED("Passed", AllIcons.RunConfigurations.TestPassed);
 
-        PluginState.getInstance().registerAssessmentStartedListener(assessment -> {
-            this.content.removeAll();
+        private final String displayName;
+        private final Icon icon;
 
-            var testResults = assessment.getAssessment().getTestResults();
-            for (var result : testResults) {
-                String tooltip = result.getDetailText().orElse("No details available");
+        TestStatus(String displayName, Icon icon) {
+            this.displayName = displayName;
+            this.icon = icon;
+        }
+
+        static TestStatus of(TestResult result) {
+            // isPositive() is true if the test passed, regardless of its points
+            // (which may be zero for mandatory tests)
+            return result.getPositive().map(p -> p ? PASSED : FAILED).orElse(UNKNOWN);
+        }
 
-                // isPositive() is true if the test passed, regardless of its points
-                // (which may be zero for mandatory tests)
-                var icon = result.getPositive()
-                        .map(p -> p ? AllIcons.RunConfigurations.TestPassed : AllIcons.RunConfigurations.TestFailed)
-                        .orElse(AllIcons.RunConfigurations.TestUnknown);
-                var iconLabel = new JBLabel(icon);
-                iconLabel.setToolTipText(tooltip);
-                this.content.add(iconLabel);
+        static TestStatus of(LocalTestResult result) {
+            return switch (result.outcome()) {
+                case PASSED -> PASSED;
+                case FAILED -> FAILED;
+                case IGNORED -> UNKNOWN;
+            };
+        }
 
-                var testName = new JBLabel(result.getTestName());
-                testName.setToolTipText(tooltip);
-                this.content.add(testName);
+        @Override
+        public String toString() {
+            return this.displayName;
+        }
+    }
+
+    public TestCasePanel(Disposable parentDisposable) {
+        super(true, true);
 
-                String points = result.getPoints() != 0.0 ? String.format("%.3fP", result.getPoints()) : "";
-                this.content.add(new JBLabel(points));
+        this.table = new JBTable(this.model);
+        this.table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        this.table.setShowGrid(false);
+        this.table.getEmptyText().setText("No active assessment");
+        this.table.setDefaultRenderer(TestStatus.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(
+                    JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                super.getTableCellRendererComponent(table, "", isSelected, hasFocus, row, column);
+                var status = (TestStatus) value;
+                this.setIcon(status.icon);
+                this.setToolTipText(status.displayName);
+                return this;
+            }
+        });
+        this.table.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(
+                    JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                double points = (Double) value;
+                String text = points != 0.0 ? String.format("%.3fP", points) : "";
+                super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
+                this.setHorizontalAlignment(RIGHT);
+                return this;
             }
+        });
+
+        // The status column only shows an icon
+        var statusColumn = this.table.getColumnModel().getColumn(STATUS_COLUMN);
+        statusColumn.setMinWidth(24);
+        statusColumn.setMaxWidth(24);
+
+        // failed tests first, then by name
+        this.sorter = new TableRowSorter<>(this.model);
+        this.sorter.setSortKeys(List.of(
+                new RowSorter.SortKey(STATUS_COLUMN, SortOrder.ASCENDING),
+                new RowSorter.SortKey(NAME_COLUMN, SortOrder.ASCENDING)));
+        this.table.setRowSorter(this.sorter);
 
-            updateUI();
+        this.detailsArea = new JBTextArea();
+        this.detailsArea.setEditable(false);
+        this.detailsArea.setLineWrap(true);
+        this.detailsArea.setWrapStyleWord(true);
+        this.rerunSelectedTestsButton = new JButton(AllIcons.Actions.Rerun);
+        this.rerunSelectedTestsButton.setToolTipText("Run the selected local tests again");
+        this.rerunSelectedTestsButton.setEnabled(false);
+        this.rerunSelectedTestsButton.addActionListener(
+                a -> LocalTestRunner.getInstance().runTestsAgain(getSelectedLocalResults()));
+        this.table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showDetailsOfSelection();
+                this.rerunSelectedTestsButton.setEnabled(!getSelectedLocalResults().isEmpty());
+            }
         });
 
-        PluginState.getInstance().registerAssessmentClosedListener(() -> {
-            this.content.removeAll();
-            this.content.add(new JBLabel("No active assessment"), "spanx 3, alignx center");
-            updateUI();
+        var splitter = new OnePixelSplitter(false, 0.6f);
+        splitter.setFirstComponent(ScrollPaneFactory.createScrollPane(this.table));
+        splitter.setSecondComponent(ScrollPaneFactory.createScrollPane(this.detailsArea));
+        setContent(splitter);
+
+        this.searchField = new SearchTextField(false);
+        this.searchField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NonNull DocumentEvent documentEvent) {
+                applyFilter();
+            }
         });
+
+        this.statusFilter = new ComboBox<>();
+        this.statusFilter.setRenderer(SimpleListCellRenderer.create("All tests", TestStatus::toString));
+        this.statusFilter.addItem(null);
+        for (var status : TestStatus.values()) {
+            this.statusFilter.addItem(status);
+        }
+        this.statusFilter.addActionListener(a -> applyFilter());
+
+        // The tests of the submission can be run locally, their results are added to the table as they finish
+        var runLocalTestsButton = new JButton(AllIcons.Actions.Execute);
+        runLocalTestsButton.setToolTipText("Run the tests of the submission locally");
+        runLocalTestsButton.addActionListener(a -> LocalTestRunner.getInstance().runTests());
+
+        var filterPanel = new JBPanel<>(new MigLayout("insets 2, fillx", "[grow] [] [] []"));
+        filterPanel.add(this.searchField, "growx");
+        filterPanel.add(this.statusFilter);
+        filterPanel.add(runLocalTestsButton);
+        filterPanel.add(this.rerunSelectedTestsButton);
+        setToolbar(filterPanel);
+
+        PluginState.getInstance().registerAssessmentStartedListener(this::showTestResults, parentDisposable);
+        PluginState.getInstance().registerAssessmentClosedListener(this::showNoActiveAssessment, parentDisposable);
+
+        LocalTestRunner.getInstance().registerRunStartedListener(this.model::clearLocalResults, parentDisposable);
+        LocalTestRunner.getInstance().registerResultListener(this::showLocalResult, parentDisposable);
+    }
+
+    private void showTestResults(ActiveAssessment assessment) {
+        this.model.setTestResults(assessment.getAssessment().getTestResults());
+        this.table.getEmptyText().setText("No test results");
+    }
+
+    private void showNoActiveAssessment() {
+        this.model.setTestResults(List.of());
+        this.table.getEmptyText().setText("No active assessment");
+    }
+
+    private void showLocalResult(LocalTestResult result) {
+        this.model.setLocalResult(TestResultRow.of(result));
+        // the details of the selected test might have changed
+        this.showDetailsOfSelection();
+    }
+
+    private void applyFilter() {
+        String query = this.searchField.getText().strip().toLowerCase(Locale.ROOT);
+        var status = (TestStatus) this.statusFilter.getSelectedItem();
+
+        if (query.isEmpty() && status == null) {
+            this.sorter.setRowFilter(null);
+            return;
+        }
+
+        this.sorter.setRowFilter(new RowFilter<TestResultsTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends TestResultsTableModel, ? extends Integer> entry) {
+                var row = entry.getModel().getRow(entry.getIdentifier());
+                return (status == null || row.status() == status)
+                        && (query.isEmpty() || row.lowerCaseName().contains(query));
+            }
+        });
+    }
+
+    private List<LocalTestResult> getSelectedLocalResults() {
+        List<LocalTestResult> results = new ArrayList<>();
+        for (int selectedRow : this.table.getSelectedRows()) {
+            var row = this.model.getRow(this.table.convertRowIndexToModel(selectedRow));
+            if (row.isLocal() && row.localResult().canRunAgain()) {
+                results.add(row.localResult());
+            }
+        }
+
+        return results;
+    }
+
+    private void showDetailsOfSelection() {
+        int selectedRow = this.table.getSelectedRow();
+        if (selectedRow < 0) {
+            this.detailsArea.setText("");
+            return;
+        }
+
+        // the detail text is only read when a test is selected
+        var row = this.model.getRow(this.table.convertRowIndexToModel(selectedRow));
+        this.detailsArea.setText(row.details().get());
+        this.detailsArea.setCaretPosition(0);
+    }
+
+    /**
+     * A row of the table, either for a test result from Artemis or for a test that has been run locally.
+     * The values that are needed for sorting and filtering are computed once, the details only on demand.
+     *
+     * @param localResult the result of the local test, null for a test result from Artemis
+     */
+    private record TestResultRow(
+            String name,
+            String lowerCaseName,
+            TestStatus status,
+            double points,
+            LocalTestResult localResult,
+            Supplier<String> details) {
+        static TestResultRow of(TestResult result) {
+            return new TestResultRow(
+                    result.getTestName(),
+                    result.getTestName().toLowerCase(Locale.ROOT),
+                    TestStatus.of(result),
+                    result.getPoints(),
+                    null,
+                    () -> result.getDetailText().orElse("No details available"));
+        }
+
+        static TestResultRow of(LocalTestResult result) {
+            String name = result.name() + " (local)";
+            return new TestResultRow(
+                    name, name.toLowerCase(Locale.ROOT), TestStatus.of(result), 0.0, result, result::details);
+        }
+
+        boolean isLocal() {
+            return this.localResult != null;
+        }
+    }
+
+    private static class TestResultsTableModel extends AbstractTableModel {
+        private List<TestResultRow> rows = new ArrayList<>();
+        // The index of the row of every local test, so that a test that is run again replaces its row
+        private final Map<String, Integer> localRowIndices = new HashMap<>();
+
+        public void setTestResults(List<TestResult> testResults) {
+            List<TestResultRow> newRows = new ArrayList<>(testResults.size());
+            for (var result : testResults) {
+                newRows.add(TestResultRow.of(result));
+            }
+
+            this.rows = newRows;
+            this.localRowIndices.clear();
+            fireTableDataChanged();
+        }
+
+        public void setLocalResult(TestResultRow row) {
+            Integer index = this.localRowIndices.get(row.name());
+            if (index != null) {
+                this.rows.set(index, row);
+                fireTableRowsUpdated(index, index);
+                return;
+            }
+
+            this.rows.add(row);
+            int newIndex = this.rows.size() - 1;
+            this.localRowIndices.put(row.name(), newIndex);
+            fireTableRowsInserted(newIndex, newIndex);
+        }
+
+        public void clearLocalResults() {
+            if (this.localRowIndices.isEmpty()) {
+                return;
+            }
+
+            this.rows.removeIf(TestResultRow::isLocal);
+            this.localRowIndices.clear();
+            fireTableDataChanged();
+        }
+
+        public TestResultRow getRow(int index) {
+            return this.rows.get(index);
+        }
+
+        @Override
+        public int getRowCount() {
+            return this.rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 3;
+        }
+
+        @Override
+        public @Nls String getColumnName(int column) {
+            return switch (column) {
+                case STATUS_COLUMN -> "";
+                case NAME_COLUMN -> "Test";
+                case POINTS_COLUMN -> "Points";
+                default -> throw new IllegalStateException("No column %d".formatted(column));
+            };
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return switch (column) {
+                case STATUS_COLUMN -> TestStatus.class;
+                case NAME_COLUMN -> String.class;
+                case POINTS_COLUMN -> Double.class;
+                default -> throw new IllegalStateException("No column %d".formatted(column));
+            };
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int column) {
+            var row = this.rows.get(rowIndex);
+            return switch (column) {
+                case STATUS_COLUMN -> row.status();
+                case NAME_COLUMN -> row.name();
+                case POINTS_COLUMN -> row.points();
+                default -> throw new IllegalStateException("No column %d".formatted(column));
+            };
+        }
     }
 }
@@ -0,0 +1,116 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.extensions.guis.table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import edu.kit.kastel.sdq.artemis4j.client.AnnotationSource;
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.RatingGroup;
+
+/**
+ * The filter that is applied to the annotations shown in the annotations table.
+ *
+ * @param text the text that has to occur in the mistake type, custom message or file path (case-insensitive)
+ * @param source the source the annotations must have, null for any source
+ * @param ratingGroup the rating group the annotations must belong to (including its subgroups),
+ *                    null for any rating group
+ * @param suppression which annotations should be shown depending on their suppression
+ */
+public record AnnotationFilter(
+        String text, AnnotationSource source, RatingGroup ratingGroup, SuppressionFilter suppression) {
+    public enum SuppressionFilter {
+        ALL("All annotations"),
+        NOT_SUPPRESSED("Not suppressed"),
+        SUPPRESSED("Suppressed");
+
+        private final String displayName;
+
+        SuppressionFilter(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return this.displayName;
+        }
+    }
+
+    public AnnotationFilter {
+        text = text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isEmpty() {
+        return this.text.isEmpty()
+                && this.source == null
+                && this.ratingGroup == null
+                && this.suppression == SuppressionFilter.ALL;
+    }
+
+    /**
+     * Returns the annotations that match this filter, in their original order.
+     * <p>
+     * This does not touch the UI and can be called from a background thread.
+     *
+     * @param annotations the annotations to filter
+     * @param searchIndex the index for the free text search
+     * @return the matching annotations
+     */
+    public List<Annotation> apply(List<Annotation> annotations, AnnotationSearchIndex searchIndex) {
+        if (this.isEmpty()) {
+            return annotations;
+        }
+
+        Set<RatingGroup> ratingGroups = this.collectRatingGroups();
+
+        List<Annotation> result = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            if (this.source != null && annotation.getSource() != this.source) {
+                continue;
+            }
+
+            if (ratingGroups != null && !ratingGroups.contains(annotation.getMistakeType().getRatingGroup())) {
+                continue;
+            }
+
+            boolean matchesSuppression =
+                    switch (this.suppression) {
+                        case ALL -> true;
+                        case NOT_SUPPRESSED -> !annotation.isSuppressed();
+                        case SUPPRESSED -> annotation.isSuppressed();
+                    };
+            if (!matchesSuppression) {
+                continue;
+            }
+
+            if (!this.text.isEmpty() && !searchIndex.getSearchText(annotation).contains(this.text)) {
+                continue;
+            }
+
+            result.add(annotation);
+        }
+
+        return result;
+    }
+
+    private Set<RatingGroup> collectRatingGroups() {
+        if (this.ratingGroup == null) {
+            return null;
+        }
+
+        Set<RatingGroup> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<RatingGroup> queue = new ArrayList<>(List.of(this.ratingGroup));
+        while (!queue.isEmpty()) {
+            var group = queue.removeLast();
+            if (result.add(group)) {
+                queue.addAll(group.listSubGroups());
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,67 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.extensions.guis.table;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import com.intellij.DynamicBundle;
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+
+/**
+ * Caches the lowercase text of every annotation that the free text filter is matched against
+ * (mistake type, custom message and file path).
+ * <p>
+ * The filter is evaluated on a background thread, therefore all methods are thread-safe.
+ */
+public class AnnotationSearchIndex {
+    private static final Locale LOCALE = DynamicBundle.getLocale();
+
+    private final Map<Annotation, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * The custom message is the only part of the text that can change without the annotation being replaced.
+     */
+    private record Entry(String customMessage, String text) {}
+
+    /**
+     * Returns the lowercase search text of the annotation.
+     *
+     * @param annotation the annotation
+     * @return the text that should be searched
+     */
+    public synchronized String getSearchText(Annotation annotation) {
+        String customMessage = annotation.getCustomMessage().orElse(null);
+
+        var entry = this.entries.get(annotation);
+        if (entry == null || !Objects.equals(entry.customMessage(), customMessage)) {
+            String text = String.join(
+                            "\n",
+                            annotation.getMistakeType().getButtonText().translateTo(LOCALE),
+                            customMessage == null ? "" : customMessage,
+                            annotation.getFilePath().replace("\\", "/"))
+                    .toLowerCase(Locale.ROOT);
+            entry = new Entry(customMessage, text);
+            this.entries.put(annotation, entry);
+        }
+
+        return entry.text();
+    }
+
+    /**
+     * Drops the entries of the given annotations, e.g. because they have been removed from the assessment.
+     *
+     * @param annotations the annotations that no longer exist
+     */
+    public synchronized void removeAll(Collection<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            this.entries.remove(annotation);
+        }
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+}
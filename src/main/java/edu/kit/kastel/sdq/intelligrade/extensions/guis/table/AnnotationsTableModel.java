@@ -1,14 +1,14 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis.table;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.function.Predicate;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.swing.tree.MutableTreeNode;
@@ -21,8 +21,25 @@ import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
  * The table model for the annotations table.
  */
 public class AnnotationsTableModel extends ListTreeTableModel {
-    private final List<Annotation> annotations = new ArrayList<>();
+    // The state of each shown annotation when it was last shown, used to detect which annotations have been modified
+    private final Map<Annotation, AnnotationState> annotationStates = new IdentityHashMap<>();
+    // The node of every annotation in the tree, so that an annotation can be found without searching the tree
+    private final Map<Annotation, AnnotationsTreeNode.AnnotationNode> annotationNodes = new IdentityHashMap<>();
     private final AnnotationsTreeNode annotationRoot;
+    // The order in which new nodes are inserted
+    private Comparator<? super AnnotationsTreeNode> currentComparator = AnnotationsTreeTable.DEFAULT_NODE_COMPARATOR;
+
+    /**
+     * The displayed properties of an annotation that can change without the annotation being replaced.
+     */
+    private record AnnotationState(String customMessage, Double customScore, boolean isSuppressed) {
+        static AnnotationState of(Annotation annotation) {
+            return new AnnotationState(
+                    annotation.getCustomMessage().orElse(null),
+                    annotation.getCustomScore().orElse(null),
+                    annotation.isSuppressed());
+        }
+    }
 
     private static MutableTreeNode createNode(List<Annotation> annotations) {
         if (annotations.size() == 1) {
@@ -113,12 +130,14 @@ public class AnnotationsTableModel extends ListTreeTableModel {
         this.annotationRoot = tempRootNode;
     }
 
-    private void refreshNodes() {
+    private void refreshNodes(List<Annotation> annotations) {
         this.annotationRoot.removeAllChildren();
+        this.annotationNodes.clear();
 
-        for (var child : groupAnnotations(this.annotations)) {
+        for (var child : groupAnnotations(annotations)) {
             this.annotationRoot.add(child);
         }
+        this.indexAnnotationNodes(this.annotationRoot);
 
         this.sort(AnnotationsTreeTable.DEFAULT_NODE_COMPARATOR);
     }
@@ -128,7 +147,7 @@ public class AnnotationsTableModel extends ListTreeTableModel {
         // An alternative approach would be to sort the list of annotations
         // and then rebuild the tree, but this would destroy the tree structure
         // and invalidate all the TreePaths.
-
+        this.currentComparator = comparator;
         this.annotationRoot.sort(comparator);
         this.reload();
     }
@@ -153,70 +172,197 @@ public class AnnotationsTableModel extends ListTreeTableModel {
         // - annotations are added
         // - annotations are removed
         // - annotations are changed (e.g. the custom message is changed)
-        ///  ^ for these the identity of the annotation is unchanged -> we don't have to change anything
-
-        // Why all this hassle? Otherwise, the currently expanded node would collapse, which is annoying.
-        List<Annotation> oldAnnotations = new ArrayList<>(this.annotations);
-        List<Annotation> newAnnotations = new ArrayList<>(annotations);
+        ///  ^ for these the identity of the annotation is unchanged -> only their rows have to be repainted
+        //
+        // This compares the whole list with the shown annotations, if the changes are already known,
+        // applyChanges should be used instead.
+        Set<Annotation> newAnnotations = Collections.newSetFromMap(new IdentityHashMap<>());
+        newAnnotations.addAll(annotations);
 
         List<Annotation> addedAnnotations = new ArrayList<>();
+        List<Annotation> modifiedAnnotations = new ArrayList<>();
         for (Annotation annotation : annotations) {
-            if (!oldAnnotations.contains(annotation)) {
+            var oldState = this.annotationStates.get(annotation);
+            if (oldState == null) {
                 addedAnnotations.add(annotation);
+            } else if (!oldState.equals(AnnotationState.of(annotation))) {
+                modifiedAnnotations.add(annotation);
             }
         }
 
         List<Annotation> removedAnnotations = new ArrayList<>();
-        for (Annotation annotation : this.annotations) {
+        for (Annotation annotation : this.annotationStates.keySet()) {
             if (!newAnnotations.contains(annotation)) {
                 removedAnnotations.add(annotation);
             }
         }
 
-        boolean wasEmpty = this.annotations.isEmpty();
+        this.applyChanges(addedAnnotations, removedAnnotations, modifiedAnnotations);
+    }
 
-        this.annotations.clear();
-        this.annotations.addAll(annotations);
+    /**
+     * Updates the tree with the given changes. Only the nodes of the changed annotations are touched.
+     * <p>
+     * Why all this hassle? Otherwise, the currently expanded node would collapse, which is annoying.
+     * Additionally, rebuilding the entire tree is slow for large assessments.
+     *
+     * @param added the annotations that should be shown in addition
+     * @param removed the annotations that should no longer be shown, those that are not shown are ignored
+     * @param modified the shown annotations whose message, score or suppression changed
+     */
+    public void applyChanges(List<Annotation> added, List<Annotation> removed, List<Annotation> modified) {
+        boolean wasEmpty = this.annotationStates.isEmpty();
+
+        for (Annotation annotation : removed) {
+            this.annotationStates.remove(annotation);
+        }
+        for (Annotation annotation : added) {
+            this.annotationStates.put(annotation, AnnotationState.of(annotation));
+        }
+        for (Annotation annotation : modified) {
+            this.annotationStates.replace(annotation, AnnotationState.of(annotation));
+        }
 
-        if (wasEmpty) {
+        if (wasEmpty || this.annotationStates.isEmpty()) {
             // this will build the tree from scratch:
-            this.refreshNodes();
-        } else {
-            this.removeAnnotations(removedAnnotations);
-            this.addAnnotations(addedAnnotations);
-            this.reload();
+            this.refreshNodes(added);
+            return;
+        }
+
+        for (Annotation annotation : removed) {
+            this.removeNode(this.annotationNodes.get(annotation));
+        }
+
+        for (Annotation annotation : added) {
+            this.insertNode(createNode(List.of(annotation)));
         }
-    }
 
-    private void removeAnnotations(List<Annotation> annotations) {
-        this.annotationRoot.removeIf(annotations::contains);
+        for (Annotation annotation : modified) {
+            var node = this.annotationNodes.get(annotation);
+            if (node != null) {
+                node.invalidateCaches();
+                this.nodeAndAncestorsChanged(node);
+            }
+        }
     }
 
-    private void addAnnotations(List<Annotation> annotations) {
-        for (var annotation : annotations) {
-            this.annotationRoot.add(createNode(List.of(annotation)));
+    private void indexAnnotationNodes(AnnotationsTreeNode subtree) {
+        if (subtree instanceof AnnotationsTreeNode.AnnotationNode annotationNode) {
+            this.annotationNodes.put(annotationNode.getAnnotation(), annotationNode);
+            return;
+        }
+
+        for (int i = 0; i < subtree.getChildCount(); i++) {
+            this.indexAnnotationNodes((AnnotationsTreeNode) subtree.getChildAt(i));
         }
     }
 
-    public TreePath getTreePathFor(Predicate<AnnotationsTreeNode> isMatching) {
-        Queue<AnnotationsTreeNode> queue = new LinkedList<>(List.of(this.annotationRoot));
+    /**
+     * Removes the node from the tree. Groups that become empty are removed as well, and groups with
+     * a single remaining child are replaced by that child.
+     *
+     * @param node the node to remove
+     */
+    private void removeNode(AnnotationsTreeNode node) {
+        if (node == null || !(node.getParent() instanceof AnnotationsTreeNode parent)) {
+            return;
+        }
+
+        int index = parent.getIndex(node);
+        parent.remove(index);
+        this.nodesWereRemoved(parent, new int[] {index}, new Object[] {node});
+
+        if (node instanceof AnnotationsTreeNode.AnnotationNode annotationNode) {
+            this.annotationNodes.remove(annotationNode.getAnnotation());
+        }
+
+        if (parent == this.annotationRoot) {
+            return;
+        }
+
+        if (parent.getChildCount() == 0) {
+            this.removeNode(parent);
+        } else if (parent.getChildCount() == 1 && parent.getParent() instanceof AnnotationsTreeNode grandParent) {
+            // if a group has only one child, replace the group with the child
+            var onlyChild = (AnnotationsTreeNode) parent.getChildAt(0);
+            int parentIndex = grandParent.getIndex(parent);
+
+            grandParent.remove(parentIndex);
+            this.nodesWereRemoved(grandParent, new int[] {parentIndex}, new Object[] {parent});
+
+            grandParent.insert(onlyChild, parentIndex);
+            this.nodesWereInserted(grandParent, new int[] {parentIndex});
 
-        while (!queue.isEmpty()) {
-            var node = queue.poll();
+            this.nodeAndAncestorsChanged(grandParent);
+        } else {
+            this.nodeAndAncestorsChanged(parent);
+        }
+    }
 
-            if (node instanceof AnnotationsTreeNode annotationNode && isMatching.test(annotationNode)) {
-                return new TreePath(node.getPath());
+    /**
+     * Inserts the node as a child of the root, at the position defined by the current sort order.
+     *
+     * @param node the node to insert
+     */
+    private void insertNode(MutableTreeNode node) {
+        var treeNode = (AnnotationsTreeNode) node;
+
+        // binary search for the first child that is greater than the new node
+        int low = 0;
+        int high = this.annotationRoot.getChildCount();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            var child = (AnnotationsTreeNode) this.annotationRoot.getChildAt(middle);
+            if (this.currentComparator.compare(child, treeNode) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
             }
+        }
 
-            queue.addAll(node.listChildren());
+        this.annotationRoot.insert(node, low);
+        this.nodesWereInserted(this.annotationRoot, new int[] {low});
+        this.indexAnnotationNodes(treeNode);
+    }
+
+    /**
+     * Repaints the row of the node and the rows of all groups containing it, because their values are
+     * aggregated from the node.
+     *
+     * @param node the node that changed
+     */
+    private void nodeAndAncestorsChanged(AnnotationsTreeNode node) {
+        AnnotationsTreeNode current = node;
+        while (current != null && current != this.annotationRoot) {
+            this.nodeChanged(current);
+            current = (AnnotationsTreeNode) current.getParent();
         }
+    }
 
-        throw new IllegalStateException("Annotation not found");
+    /**
+     * Checks whether the annotation has a row in the table, it might have been filtered out.
+     *
+     * @param annotation the annotation
+     * @return true if the annotation is shown in the table
+     */
+    public boolean containsAnnotation(Annotation annotation) {
+        return this.annotationNodes.containsKey(annotation);
     }
 
+    /**
+     * Returns the path to the row of the annotation. This only has to walk from the node of the annotation
+     * up to the root.
+     *
+     * @param annotation the annotation
+     * @return the path of the annotation's node
+     */
     public TreePath getTreePathFor(Annotation annotation) {
-        return getTreePathFor(node -> node instanceof AnnotationsTreeNode.AnnotationNode annotationNode
-                && annotationNode.getAnnotation() == annotation);
+        var node = this.annotationNodes.get(annotation);
+        if (node == null) {
+            throw new IllegalStateException("Annotation not found");
+        }
+
+        return new TreePath(node.getPath());
     }
 
     @Override
@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis.table;
 
 import java.util.ArrayList;
@@ -9,10 +9,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
 
 import com.intellij.DynamicBundle;
 import com.intellij.ide.projectView.PresentationData;
@@ -23,6 +24,8 @@ import com.intellij.ui.treeStructure.treetable.TreeTableModel;
 import com.intellij.util.ui.ColumnInfo;
 import edu.kit.kastel.sdq.artemis4j.client.AnnotationSource;
 import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import edu.kit.kastel.sdq.intelligrade.state.ReviewDiff;
 import org.jspecify.annotations.NonNull;
 
 public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
@@ -50,6 +53,14 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
                 new SimpleTextAttributes(SimpleTextAttributes.STYLE_STRIKEOUT, JBColor.RED);
         private static final SimpleTextAttributes PARTIALLY_SUPPRESSED_ATTRIBUTES =
                 new SimpleTextAttributes(SimpleTextAttributes.STYLE_PLAIN, JBColor.ORANGE);
+        private static final SimpleTextAttributes ADDED_ATTRIBUTES =
+                new SimpleTextAttributes(SimpleTextAttributes.STYLE_BOLD, JBColor.GREEN);
+        private static final SimpleTextAttributes CHANGED_ATTRIBUTES =
+                new SimpleTextAttributes(SimpleTextAttributes.STYLE_BOLD, JBColor.BLUE);
+        private static final SimpleTextAttributes REMOVED_ATTRIBUTES =
+                new SimpleTextAttributes(SimpleTextAttributes.STYLE_BOLD, JBColor.RED);
+        private static final SimpleTextAttributes NEEDS_CHECK_ATTRIBUTES =
+                new SimpleTextAttributes(SimpleTextAttributes.STYLE_BOLD, JBColor.ORANGE);
 
         @Override
         public String getName() {
@@ -78,11 +89,55 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
                 }
             }
 
+            if (annotations.size() == 1) {
+                this.addReviewMarker(annotations.getFirst());
+                this.addCheckMarker(annotations.getFirst());
+            }
+
             this.data.addText(getName(), attributes);
             return this.data;
         }
+
+        /**
+         * In review mode, marks whether the annotation has been added, changed or removed in the second round.
+         */
+        private void addReviewMarker(Annotation annotation) {
+            var status = PluginState.getInstance()
+                    .getActiveAssessment()
+                    .map(assessment -> assessment.getReviewDiff().getStatus(annotation))
+                    .orElse(ReviewDiff.Status.UNCHANGED);
+
+            switch (status) {
+                case ADDED -> this.data.addText("+ ", ADDED_ATTRIBUTES);
+                case CHANGED -> this.data.addText("~ ", CHANGED_ATTRIBUTES);
+                case REMOVED -> this.data.addText("- ", REMOVED_ATTRIBUTES);
+                case UNCHANGED -> {
+                    // unchanged annotations are not marked
+                }
+            }
+        }
+
+        /**
+         * Marks annotations that the tutor has to check, e.g. because the student changed the annotated lines.
+         */
+        private void addCheckMarker(Annotation annotation) {
+            boolean needsCheck = PluginState.getInstance()
+                    .getActiveAssessment()
+                    .map(assessment -> assessment.needsCheck(annotation))
+                    .orElse(false);
+
+            if (needsCheck) {
+                this.data.addText("! ", NEEDS_CHECK_ATTRIBUTES);
+                this.data.setTooltip("The annotated lines have changed, check whether the annotation still applies");
+            }
+        }
     }
 
+    // The values are cached, because they are requested for every cell on every repaint.
+    // Like the annotation, this should never be serialized.
+    private transient Object[] cachedValues;
+    private transient Comparable<?>[] cachedSortKeys;
+
     protected AnnotationsTreeNode(boolean allowsChildren) {
         super(null, allowsChildren);
 
@@ -123,7 +178,7 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
                     .getButtonText()
                     .translateTo(LOCALE);
             case LINES_COLUMN -> Lines.fromAnnotation(annotation);
-            case FILE_COLUMN -> new FilePaths(List.of(annotation.getFilePath()));
+            case FILE_COLUMN -> FilePaths.of(annotation.getFilePath());
             case SOURCE_COLUMN -> annotation.getSource();
             case CUSTOM_MESSAGE_COLUMN -> annotation.getCustomMessage().orElse("");
             case CUSTOM_PENALTY_COLUMN -> annotation
@@ -145,76 +200,132 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
                 .toList();
     }
 
-    public abstract Object getValueAt(int column);
+    /**
+     * Returns the value that is displayed in the given column. The value is computed once and then
+     * cached until {@link #invalidateCaches()} is called.
+     *
+     * @param column the column index
+     * @return the value of the column
+     */
+    public final Object getValueAt(int column) {
+        if (this.cachedValues == null) {
+            this.cachedValues = new Object[numberOfColumns()];
+        }
 
-    public abstract List<Annotation> listAnnotations();
+        Object value = this.cachedValues[column];
+        if (value == null) {
+            value = this.computeValueAt(column);
+            this.cachedValues[column] = value;
+        }
 
-    public boolean removeIf(Predicate<Annotation> shouldRemove) {
-        boolean hasAnyChanged = false;
+        return value;
+    }
 
-        for (var child : listChildren()) {
-            boolean hasChanged = child.removeIf(shouldRemove);
-            if (hasChanged) {
-                hasAnyChanged = true;
-            }
+    protected abstract Object computeValueAt(int column);
 
-            // remove the child if it should be removed
-            if (child instanceof AnnotationNode annotationNode) {
-                if (shouldRemove.test(annotationNode.getAnnotation())) {
-                    remove(child);
-                    hasAnyChanged = true;
-                }
-                continue;
-            }
+    /**
+     * Returns a key by which this node can be sorted in the given column. Like the values, the keys
+     * are cached, so sorting computes each key only once per node.
+     *
+     * @param column the column index
+     * @return the sort key, or null if the node has no value in the column
+     */
+    public final Comparable<?> getSortKey(int column) {
+        if (this.cachedSortKeys == null) {
+            this.cachedSortKeys = new Comparable<?>[numberOfColumns()];
+        }
 
-            // if a group has only one child, replace the group with the child
-            if (hasChanged && child.getChildCount() == 1) {
-                var onlyChild = child.listChildren().getFirst();
-                replace(child, onlyChild);
-                continue;
-            }
+        Comparable<?> key = this.cachedSortKeys[column];
+        if (key == null) {
+            key = computeSortKey(this.getValueAt(column));
+            this.cachedSortKeys[column] = key;
+        }
 
-            // remove empty children (e.g. groups which have no annotations)
-            //
-            // Note: if annotations are removed one by one, a group will never be empty,
-            //       because of the above code, but if multiple annotations are removed at once,
-            //       a group could become empty.
-            if (hasChanged && child.getAllowsChildren() && child.getChildCount() == 0) {
-                remove(child);
-            }
+        return key;
+    }
+
+    private static Comparable<?> computeSortKey(Object value) {
+        if (value == null) {
+            return null;
         }
 
-        return hasAnyChanged;
+        return switch (value) {
+            case Lines lines -> lines.sortKey();
+            // the code should be able to assume that a column value implements Comparable,
+            // so that it can be compared with other values of the same column.
+            case Comparable<?> comparable -> comparable;
+            default -> value.toString();
+        };
+    }
+
+    public abstract List<Annotation> listAnnotations();
+
+    protected void clearCaches() {
+        this.cachedValues = null;
+        this.cachedSortKeys = null;
     }
 
-    public void replace(AnnotationsTreeNode oldNode, AnnotationsTreeNode newNode) {
-        int index = getIndex(oldNode);
-        if (index == -1) {
-            throw new IllegalArgumentException("oldNode is not a child of this node");
+    /**
+     * Invalidates the cached values of this node and of all its ancestors, because their values are
+     * aggregated from this node.
+     * <p>
+     * This must be called when a displayed property of an annotation changes, changes of the tree structure
+     * are handled automatically.
+     */
+    public void invalidateCaches() {
+        for (var node = this; node != null; node = (AnnotationsTreeNode) node.getParent()) {
+            node.clearCaches();
         }
+    }
 
-        remove(index);
-        insert(newNode, index);
+    @Override
+    public void insert(MutableTreeNode newChild, int childIndex) {
+        super.insert(newChild, childIndex);
+        this.invalidateCaches();
+    }
+
+    @Override
+    public void remove(int childIndex) {
+        super.remove(childIndex);
+        this.invalidateCaches();
     }
 
     /**
      * Sorts all children of this node recursively.
+     * <p>
+     * The children are reordered in place, so that sorting does not go through {@link #insert} and
+     * {@link #remove}, which would invalidate the caches of every node. Only the nodes whose order
+     * of annotations changed clear their own caches.
      *
      * @param comparator the comparator that defines the sorting
      */
     public void sort(Comparator<? super AnnotationsTreeNode> comparator) {
-        List<AnnotationsTreeNode> children = new ArrayList<>(listChildren());
-        this.removeAllChildren();
+        this.sortChildren(comparator);
+    }
 
-        for (var child : children) {
-            child.sort(comparator);
+    private boolean sortChildren(Comparator<? super AnnotationsTreeNode> comparator) {
+        if (this.children == null || this.children.isEmpty()) {
+            return false;
         }
 
-        children.sort(comparator);
+        // the sort keys of a child depend on the order of its children, so they are sorted first
+        boolean hasChanged = false;
+        for (var child : this.children) {
+            hasChanged |= ((AnnotationsTreeNode) child).sortChildren(comparator);
+        }
+
+        List<TreeNode> previousOrder = new ArrayList<>(this.children);
+        this.children.sort(
+                (left, right) -> comparator.compare((AnnotationsTreeNode) left, (AnnotationsTreeNode) right));
+        for (int i = 0; i < previousOrder.size() && !hasChanged; i++) {
+            hasChanged = previousOrder.get(i) != this.children.get(i);
+        }
 
-        for (AnnotationsTreeNode child : children) {
-            add(child);
+        if (hasChanged) {
+            this.clearCaches();
         }
+
+        return hasChanged;
     }
 
     public static class AnnotationNode extends AnnotationsTreeNode {
@@ -233,7 +344,7 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
         }
 
         @Override
-        public Object getValueAt(int column) {
+        protected Object computeValueAt(int column) {
             return getValueOfAt(annotation, column);
         }
 
@@ -263,12 +374,20 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
     }
 
     public static class GroupNode extends AnnotationsTreeNode {
+        private transient List<Annotation> cachedAnnotations;
+
         public GroupNode() {
             super(true);
         }
 
         @Override
-        public Object getValueAt(int column) {
+        protected void clearCaches() {
+            super.clearCaches();
+            this.cachedAnnotations = null;
+        }
+
+        @Override
+        protected Object computeValueAt(int column) {
             // For the group node, we need to display something in the row.
             //
             // This function first collects all the values of the children at the given column, and then
@@ -286,7 +405,7 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
             } else if (columnClass(column) == Lines.class) {
                 return Lines.fromLines(data.stream().map(Lines.class::cast).toList());
             } else if (columnClass(column) == FilePaths.class) {
-                return new FilePaths(data.stream()
+                return FilePaths.of(data.stream()
                         .map(FilePaths.class::cast)
                         .map(FilePaths::filePaths)
                         .flatMap(List::stream)
@@ -318,12 +437,16 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
 
         @Override
         public List<Annotation> listAnnotations() {
-            List<Annotation> result = new ArrayList<>();
-            for (var child : listChildren()) {
-                result.addAll(child.listAnnotations());
+            if (this.cachedAnnotations == null) {
+                List<Annotation> result = new ArrayList<>();
+                for (var child : listChildren()) {
+                    result.addAll(child.listAnnotations());
+                }
+
+                this.cachedAnnotations = Collections.unmodifiableList(result);
             }
 
-            return result;
+            return this.cachedAnnotations;
         }
 
         @Override
@@ -338,7 +461,7 @@ public abstract class AnnotationsTreeNode extends DefaultMutableTreeNode {
         }
 
         @Override
-        public Object getValueAt(int column) {
+        protected Object computeValueAt(int column) {
             return null;
         }
 
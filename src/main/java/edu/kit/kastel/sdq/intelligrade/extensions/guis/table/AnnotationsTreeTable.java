@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis.table;
 
 import java.awt.Component;
@@ -12,7 +12,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import javax.swing.JLabel;
@@ -131,27 +130,14 @@ public class AnnotationsTreeTable extends TreeTable {
 
     @SuppressWarnings("unchecked")
     private static Comparator<AnnotationsTreeNode> delegatingColumnComparator(int columnIdx) {
-        if (AnnotationsTreeNode.columnClass(columnIdx) == Object.class) {
-            // by default compare the strings of the column values:
-            return Comparator.comparing(
-                    (AnnotationsTreeNode node) -> node.getValueAt(columnIdx).toString());
-        }
-
-        // if the class is not Object, this `Comparator` is used that will
-        // delegate to the `compareTo` method of the column values:
-        return (left, right) ->
-                // The Objects.compare takes care of null values
-                Objects.compare(left.getValueAt(columnIdx), right.getValueAt(columnIdx), (a, b) -> {
-                    if (a instanceof Comparable<?> comparable) {
-                        // the code should be able to assume that a column value implements Comparable,
-                        // so that it can be compared with other values of the same column.
-                        //
-                        // If this is not the case, the code will crash here, indicating an implementation error.
-                        return ((Comparable<Object>) comparable).compareTo(b);
-                    } else {
-                        return a.toString().compareTo(b.toString());
-                    }
-                });
+        // The sort keys are computed once per node and cached (decorate-sort-undecorate), so a comparison
+        // does not have to recompute or re-sort the column values.
+        //
+        // If the keys of a column are not comparable with each other, the code will crash here,
+        // indicating an implementation error.
+        return Comparator.comparing(
+                (AnnotationsTreeNode node) -> (Comparable<Object>) node.getSortKey(columnIdx),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
     }
 
     private void installListeners() {
@@ -277,20 +263,15 @@ public class AnnotationsTreeTable extends TreeTable {
         List<Annotation> annotationsToDelete = getSelectedAnnotations();
 
         LOG.debug("Deleting annotations: " + annotationsToDelete);
-        var assessment = PluginState.getInstance().getActiveAssessment().orElseThrow();
-        for (var annotation : annotationsToDelete) {
-            assessment.deleteAnnotation(annotation);
-        }
+        // all annotations are deleted at once, so that the UI is only updated once
+        PluginState.getInstance().getActiveAssessment().orElseThrow().deleteAnnotations(annotationsToDelete);
     }
 
     public void restoreSelection() {
         List<Annotation> annotationsToRestore = getSelectedAnnotations();
 
         LOG.debug("Restoring annotations: " + annotationsToRestore);
-        var assessment = PluginState.getInstance().getActiveAssessment().orElseThrow();
-        for (var annotation : annotationsToRestore) {
-            assessment.restoreAnnotation(annotation);
-        }
+        PluginState.getInstance().getActiveAssessment().orElseThrow().restoreAnnotations(annotationsToRestore);
     }
 
     @Override
@@ -1,50 +1,53 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis.table;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-public record FilePaths(List<String> filePaths) implements Comparable<FilePaths> {
-    public FilePaths {
-        // remove duplicates and sort the file paths
-        filePaths = filePaths.stream()
-                .map(path -> path.replace("\\", "/"))
-                .sorted()
-                .distinct()
-                .collect(Collectors.toCollection(ArrayList::new));
-    }
+import com.intellij.util.containers.Interner;
+import org.jspecify.annotations.NonNull;
 
-    private List<PathSegment> getFileTree() {
-        List<PathSegment> fileTree = new ArrayList<>();
+/**
+ * The file paths shown in the file column of the annotations table.
+ * <p>
+ * Instances are immutable and interned, so rows with the same files share one instance,
+ * and with it the display string that is only built once.
+ */
+public final class FilePaths implements Comparable<FilePaths> {
+    private static final Interner<FilePaths> INTERNER = Interner.createWeakInterner();
 
-        for (String filePath : filePaths) {
-            List<String> path = List.of(filePath.split("/"));
-            PathSegment segment = new PathSegment(path.getLast());
+    private final List<String> filePaths;
+    // built on first use, a race only results in the string being built twice
+    private String displayString;
 
-            for (int i = path.size() - 2; i >= 0; i--) {
-                segment = new PathSegment(path.get(i), List.of(segment));
-            }
+    private FilePaths(List<String> filePaths) {
+        this.filePaths = filePaths;
+    }
 
-            // try to find a segment that is already in the tree and add the segment to it if possible
-            boolean hasBeenAdded = false;
-            for (PathSegment treeSegment : fileTree) {
-                if (treeSegment.addIfPossible(segment)) {
-                    hasBeenAdded = true;
-                    break;
-                }
-            }
+    public static FilePaths of(String filePath) {
+        return of(List.of(filePath));
+    }
 
-            if (!hasBeenAdded) {
-                fileTree.add(segment);
-            }
-        }
+    public static FilePaths of(Collection<String> filePaths) {
+        // remove duplicates and sort the file paths
+        var normalized = filePaths.stream()
+                .map(path -> path.replace("\\", "/"))
+                .sorted()
+                .distinct()
+                .toList();
 
-        return fileTree;
+        return INTERNER.intern(new FilePaths(normalized));
+    }
+
+    public List<String> filePaths() {
+        return this.filePaths;
     }
 
     @Override
-    public int compareTo(FilePaths other) {
+    public int compareTo(@NonNull FilePaths other) {
         var left = filePaths;
         var right = other.filePaths;
 
@@ -58,51 +61,69 @@ public record FilePaths(List<String> filePaths) implements Comparable<FilePaths>
         return Integer.compare(left.size(), right.size());
     }
 
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof FilePaths other && this.filePaths.equals(other.filePaths);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.filePaths.hashCode();
+    }
+
     // This is how the file tree would look like for file paths:
     // src/(edu/(Main.java, Other.java), test/Test.java)
 
     @Override
     public String toString() {
-        return getFileTree().stream().map(PathSegment::toString).collect(Collectors.joining(", "));
+        String result = this.displayString;
+        if (result == null) {
+            result = buildFileTree().childrenToString();
+            this.displayString = result;
+        }
+
+        return result;
     }
 
-    private record PathSegment(String name, List<PathSegment> elements) {
-        public PathSegment {
-            elements = new ArrayList<>(elements);
-        }
+    private PathSegment buildFileTree() {
+        // the root has no name, its children are the first segments of the paths
+        PathSegment root = new PathSegment("");
 
-        public PathSegment(String name) {
-            this(name, List.of());
+        for (String filePath : filePaths) {
+            PathSegment segment = root;
+            for (String name : filePath.split("/")) {
+                segment = segment.children().computeIfAbsent(name, PathSegment::new);
+            }
         }
 
-        public boolean addIfPossible(PathSegment segment) {
-            if (!this.name().equals(segment.name())) {
-                return false;
-            }
+        return root;
+    }
 
-            // the current name is shared, therefore try to merge the children:
-            List<PathSegment> remaining = new ArrayList<>(segment.elements());
-            for (var elem : elements) {
-                remaining.removeIf(elem::addIfPossible);
-            }
+    /**
+     * A segment of the file tree. The children are in the order in which they were first added.
+     */
+    private record PathSegment(String name, Map<String, PathSegment> children) {
+        PathSegment(String name) {
+            this(name, new LinkedHashMap<>());
+        }
 
-            elements.addAll(remaining);
-            return true;
+        String childrenToString() {
+            return children.values().stream().map(PathSegment::toString).collect(Collectors.joining(", "));
         }
 
         @Override
         public String toString() {
-            if (elements.isEmpty()) {
+            if (children.isEmpty()) {
                 return name;
             }
 
             String result = name + "/";
 
-            if (elements.size() == 1) {
-                return result + elements.getFirst();
+            if (children.size() == 1) {
+                return result + children.values().iterator().next();
             }
 
-            return result + "(" + elements.stream().map(PathSegment::toString).collect(Collectors.joining(", ")) + ")";
+            return result + "(" + childrenToString() + ")";
         }
     }
 }
@@ -1,38 +1,106 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.guis.table;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.intellij.util.containers.Interner;
 import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
 import org.jspecify.annotations.NonNull;
 
-public record Lines(List<LineLocation> locations) implements Comparable<Lines> {
+/**
+ * The lines shown in the lines column of the annotations table.
+ * <p>
+ * Instances are immutable and interned, so rows with the same lines share one instance,
+ * and with it the display string and the sort key that are only computed once.
+ */
+public final class Lines implements Comparable<Lines> {
+    private static final Interner<Lines> INTERNER = Interner.createWeakInterner();
+
+    private final List<LineLocation> locations;
+    // computed on first use, a race only results in them being computed twice
+    private String displayString;
+    private SortKey sortKey;
+
+    private Lines(List<LineLocation> locations) {
+        this.locations = locations;
+    }
+
+    public static Lines of(List<LineLocation> locations) {
+        return INTERNER.intern(new Lines(List.copyOf(locations)));
+    }
+
     public static Lines fromLines(List<Lines> lines) {
-        return new Lines(lines.stream().flatMap(l -> l.locations.stream()).toList());
+        return of(lines.stream().flatMap(l -> l.locations.stream()).toList());
     }
 
     public static Lines fromAnnotation(Annotation annotation) {
-        return new Lines(List.of(LineLocation.fromAnnotation(annotation)));
+        return of(List.of(LineLocation.fromAnnotation(annotation)));
+    }
+
+    public List<LineLocation> locations() {
+        return this.locations;
     }
 
     @Override
     public String toString() {
-        return locations.stream().map(LineLocation::toString).collect(Collectors.joining(", "));
+        String result = this.displayString;
+        if (result == null) {
+            result = locations.stream().map(LineLocation::toString).collect(Collectors.joining(", "));
+            this.displayString = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a key that orders the same way as this object, but does not have to sort the locations
+     * on every comparison.
+     *
+     * @return the sort key
+     */
+    public SortKey sortKey() {
+        SortKey result = this.sortKey;
+        if (result == null) {
+            result = new SortKey(locations.stream().sorted().toList());
+            this.sortKey = result;
+        }
+
+        return result;
     }
 
     @Override
     public int compareTo(@NonNull Lines other) {
-        var left = locations.stream().sorted().toList();
-        var right = other.locations.stream().sorted().toList();
+        return this.sortKey().compareTo(other.sortKey());
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Lines other && this.locations.equals(other.locations);
+    }
 
-        for (int i = 0; i < Math.min(left.size(), right.size()); i++) {
-            var comparison = left.get(i).compareTo(right.get(i));
-            if (comparison != 0) {
-                return comparison;
+    @Override
+    public int hashCode() {
+        return this.locations.hashCode();
+    }
+
+    /**
+     * The locations in ascending order, compared lexicographically.
+     */
+    public record SortKey(List<LineLocation> sortedLocations) implements Comparable<SortKey> {
+        @Override
+        public int compareTo(@NonNull SortKey other) {
+            var left = sortedLocations;
+            var right = other.sortedLocations;
+
+            for (int i = 0; i < Math.min(left.size(), right.size()); i++) {
+                var comparison = left.get(i).compareTo(right.get(i));
+                if (comparison != 0) {
+                    return comparison;
+                }
             }
-        }
 
-        return Integer.compare(left.size(), right.size());
+            return Integer.compare(left.size(), right.size());
+        }
     }
 }
@@ -0,0 +1,126 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.extensions.projectview;
+
+import java.util.Set;
+
+import com.intellij.ide.projectView.PresentationData;
+import com.intellij.ide.projectView.ProjectView;
+import com.intellij.ide.projectView.ProjectViewNode;
+import com.intellij.ide.projectView.ProjectViewNodeDecorator;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiManager;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
+import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
+
+/**
+ * Shows the number of annotations of a file next to its name in the project view.
+ * <p>
+ * The counts are maintained by the active assessment, so decorating a node is a single lookup.
+ */
+public class AnnotationCountDecorator implements ProjectViewNodeDecorator {
+    public static void initialize(Project project) {
+        PluginState.getInstance()
+                .registerAssessmentStartedListener(
+                        assessment -> {
+                            assessment.registerAnnotationCountsChangedListener(
+                                    changedFiles -> refreshPresentation(project, changedFiles), project);
+                            refreshPresentation(project, null);
+                        },
+                        project);
+
+        PluginState.getInstance()
+                .registerAssessmentClosedListener(() -> refreshPresentation(project, null), project);
+    }
+
+    /**
+     * Returns the number of annotations in the given file, or 0 if no assessment is active.
+     *
+     * @param file the file
+     * @return the number of annotations in the file
+     */
+    static int getAnnotationCount(VirtualFile file) {
+        var assessment = PluginState.getInstance().getActiveAssessment();
+        if (assessment.isEmpty()) {
+            return 0;
+        }
+
+        return IntellijUtil.getAssignmentRelativePath(file)
+                .map(path -> assessment.get().getAnnotationCount(path))
+                .orElse(0);
+    }
+
+    static String formatCount(int count) {
+        return count == 1 ? "1 annotation" : "%d annotations".formatted(count);
+    }
+
+    @Override
+    public void decorate(ProjectViewNode<?> node, PresentationData data) {
+        var file = node.getVirtualFile();
+        if (file == null || file.isDirectory()) {
+            return;
+        }
+
+        int count = getAnnotationCount(file);
+        if (count > 0) {
+            data.setLocationString(formatCount(count));
+        }
+    }
+
+    /**
+     * Updates the project view and the editor tabs after the annotation counts changed.
+     *
+     * @param project the project to update
+     * @param changedFiles the paths of the files whose counts changed, or null if all files may have changed
+     */
+    private static void refreshPresentation(Project project, Set<String> changedFiles) {
+        if (project.isDisposed()) {
+            return;
+        }
+
+        refreshProjectView(project, changedFiles);
+
+        var editorManager = FileEditorManagerEx.getInstanceEx(project);
+        for (var file : FileEditorManager.getInstance(project).getOpenFiles()) {
+            boolean hasChanged = changedFiles == null
+                    || IntellijUtil.getAssignmentRelativePath(file)
+                            .map(changedFiles::contains)
+                            .orElse(false);
+            if (hasChanged) {
+                editorManager.updateFilePresentation(file);
+            }
+        }
+    }
+
+    /**
+     * Updates the nodes of the changed files, rebuilding the whole tree would be too slow for
+     * a change that affects a single file.
+     */
+    private static void refreshProjectView(Project project, Set<String> changedFiles) {
+        var projectView = ProjectView.getInstance(project);
+        var pane = projectView.getCurrentProjectViewPane();
+        if (changedFiles == null || pane == null) {
+            projectView.refresh();
+            return;
+        }
+
+        var assignmentDirectory = IntellijUtil.getProjectRootDirectory().resolve(ActiveAssessment.ASSIGNMENT_SUB_PATH);
+        var psiManager = PsiManager.getInstance(project);
+        for (String path : changedFiles) {
+            var file = LocalFileSystem.getInstance().findFileByNioFile(assignmentDirectory.resolve(path));
+            if (file == null) {
+                continue;
+            }
+
+            var psiFile = ReadAction.compute(() -> file.isValid() ? psiManager.findFile(file) : null);
+            if (psiFile != null) {
+                pane.updateFrom(psiFile, false, false);
+            }
+        }
+    }
+}
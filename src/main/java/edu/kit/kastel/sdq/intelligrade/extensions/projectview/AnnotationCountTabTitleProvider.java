@@ -0,0 +1,25 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.extensions.projectview;
+
+import com.intellij.openapi.fileEditor.impl.EditorTabTitleProvider;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Appends the number of annotations of a file to the title of its editor tab.
+ */
+public class AnnotationCountTabTitleProvider implements EditorTabTitleProvider, DumbAware {
+    @Override
+    public @Nullable String getEditorTabTitle(@NonNull Project project, @NonNull VirtualFile file) {
+        int count = AnnotationCountDecorator.getAnnotationCount(file);
+        if (count == 0) {
+            // fall back to the default title
+            return null;
+        }
+
+        return "%s (%d)".formatted(file.getPresentableName(), count);
+    }
+}
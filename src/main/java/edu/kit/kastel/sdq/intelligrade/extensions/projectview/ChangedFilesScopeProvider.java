@@ -0,0 +1,51 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.extensions.projectview;
+
+import java.util.List;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.ide.projectView.ProjectView;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.scope.packageSet.CustomScopesProvider;
+import com.intellij.psi.search.scope.packageSet.FilteredPackageSet;
+import com.intellij.psi.search.scope.packageSet.NamedScope;
+import com.intellij.psi.search.scope.packageSet.NamedScopeManager;
+import edu.kit.kastel.sdq.intelligrade.templatediff.TemplateDiffService;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Provides a scope with the files that the student added or modified compared to the template.
+ * In the project view, it can be selected to hide everything that has been provided by the template.
+ */
+public class ChangedFilesScopeProvider implements CustomScopesProvider {
+    private static final String SCOPE_NAME = "IntelliGrade: Changed Files";
+
+    private static final NamedScope SCOPE =
+            new NamedScope(SCOPE_NAME, AllIcons.Actions.Diff, new FilteredPackageSet(SCOPE_NAME) {
+                @Override
+                public boolean contains(@NonNull VirtualFile file, @NonNull Project project) {
+                    return TemplateDiffService.getInstance().isChanged(file);
+                }
+            });
+
+    public static void initialize(Project project) {
+        TemplateDiffService.getInstance()
+                .registerDiffChangedListener(
+                        () -> {
+                            if (project.isDisposed()) {
+                                return;
+                            }
+
+                            // the scope view caches which files are in a scope
+                            NamedScopeManager.getInstance(project).fireScopeListeners();
+                            ProjectView.getInstance(project).refresh();
+                        },
+                        project);
+    }
+
+    @Override
+    public @NonNull List<NamedScope> getCustomScopes() {
+        return List.of(SCOPE);
+    }
+}
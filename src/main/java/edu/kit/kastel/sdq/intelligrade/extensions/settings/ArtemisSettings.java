@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.settings;
 
 import java.util.Objects;
@@ -19,6 +19,7 @@ import com.intellij.ui.components.JBPanel;
 import com.intellij.ui.components.JBPasswordField;
 import com.intellij.ui.components.JBRadioButton;
 import com.intellij.ui.components.JBTextField;
+import edu.kit.kastel.sdq.intelligrade.highlighter.HighlighterManager;
 import edu.kit.kastel.sdq.intelligrade.state.PluginState;
 import net.miginfocom.swing.MigLayout;
 import org.jspecify.annotations.Nullable;
@@ -45,6 +46,7 @@ public class ArtemisSettings implements Configurable {
     private JBRadioButton autograderSkipButton;
 
     private JBCheckBox autoOpenMainClassCheckBox;
+    private JBCheckBox showInlineAnnotationHintsCheckBox;
     private ThemeColorPanel highlighterColorChooser;
     private ThemeColorPanel activeAssessmentButtonColorChooser;
     private ThemeColorPanel finishedAssessmentButtonColorChooser;
@@ -200,6 +202,8 @@ public class ArtemisSettings implements Configurable {
         contentPanel.add(new TitledSeparator("General"), "span 2, growx");
         autoOpenMainClassCheckBox = new JBCheckBox("Auto-open main class");
         contentPanel.add(autoOpenMainClassCheckBox, "span 2, growx");
+        showInlineAnnotationHintsCheckBox = new JBCheckBox("Show annotations inline in the editor");
+        contentPanel.add(showInlineAnnotationHintsCheckBox, "span 2, growx");
 
         contentPanel.add(new JBLabel("Highlighter color:"));
         highlighterColorChooser = new ThemeColorPanel();
@@ -238,6 +242,7 @@ public class ArtemisSettings implements Configurable {
         modified |= useTokenLoginButton.isSelected() != settings.isUseTokenLogin();
         modified |= getSelectedAutograderOption() != settings.getAutograderOption();
         modified |= autoOpenMainClassCheckBox.isSelected() != settings.isAutoOpenMainClass();
+        modified |= showInlineAnnotationHintsCheckBox.isSelected() != settings.isShowInlineAnnotationHints();
         modified |= getSelectedVcsOption() != settings.getVcsAccessOption();
         modified |= !Objects.equals(
                 activeAssessmentButtonColorChooser.getSelectedColor(), settings.getActiveAssessmentButtonColor());
@@ -269,10 +274,17 @@ public class ArtemisSettings implements Configurable {
         settings.setAutograderPath(autograderPathField.getText());
 
         settings.setAutoOpenMainClass(autoOpenMainClassCheckBox.isSelected());
+        boolean inlineHintsChanged =
+                showInlineAnnotationHintsCheckBox.isSelected() != settings.isShowInlineAnnotationHints();
+        settings.setShowInlineAnnotationHints(showInlineAnnotationHintsCheckBox.isSelected());
         settings.setAnnotationColor(highlighterColorChooser.getSelectedColor());
         settings.setActiveAssessmentButtonColor(activeAssessmentButtonColorChooser.getSelectedColor());
         settings.setFinishedAssessmentButtonColor(finishedAssessmentButtonColorChooser.getSelectedColor());
         settings.setReportingAssessmentButtonColor(reportingAssessmentButtonColorChooser.getSelectedColor());
+
+        if (inlineHintsChanged) {
+            HighlighterManager.updateHighlightersForAllEditors();
+        }
     }
 
     /**
@@ -304,6 +316,7 @@ public class ArtemisSettings implements Configurable {
         autograderPathField.setText(settings.getAutograderPath());
 
         autoOpenMainClassCheckBox.setSelected(settings.isAutoOpenMainClass());
+        showInlineAnnotationHintsCheckBox.setSelected(settings.isShowInlineAnnotationHints());
         highlighterColorChooser.setSelectedColor(settings.getAnnotationColor());
         activeAssessmentButtonColorChooser.setSelectedColor(settings.getActiveAssessmentButtonColor());
         finishedAssessmentButtonColorChooser.setSelectedColor(settings.getFinishedAssessmentButtonColor());
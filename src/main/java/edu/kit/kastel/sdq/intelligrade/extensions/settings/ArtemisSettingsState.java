@@ -1,8 +1,14 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.settings;
 
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.PersistentStateComponent;
@@ -39,7 +45,11 @@ public class ArtemisSettingsState implements PersistentStateComponent<ArtemisSet
         public AutograderOption autograderOption = AutograderOption.FROM_GITHUB;
         public String autograderPath = null;
         public boolean autoOpenMainClass = true;
+        public boolean showInlineAnnotationHints = false;
         public String selectedGradingConfigPath;
+        // The ids of the rating groups that were collapsed/expanded in the assessment panel, per grading config path
+        public Map<String, List<String>> collapsedRatingGroups = new HashMap<>();
+        public Map<String, List<String>> expandedRatingGroups = new HashMap<>();
 
         public Date jwtExpiry = new Date(Long.MAX_VALUE);
 
@@ -177,6 +187,14 @@ public class ArtemisSettingsState implements PersistentStateComponent<ArtemisSet
         state.autoOpenMainClass = autoOpenMainClass;
     }
 
+    public boolean isShowInlineAnnotationHints() {
+        return state.showInlineAnnotationHints;
+    }
+
+    public void setShowInlineAnnotationHints(boolean showInlineAnnotationHints) {
+        state.showInlineAnnotationHints = showInlineAnnotationHints;
+    }
+
     public VCSAccessOption getVcsAccessOption() {
         return state.vcsAccessOption;
     }
@@ -208,4 +226,44 @@ public class ArtemisSettingsState implements PersistentStateComponent<ArtemisSet
     public void setReportingAssessmentButtonColor(ThemeColor reportingAssessmentButtonColor) {
         state.reportingAssessmentButtonColor = reportingAssessmentButtonColor;
     }
+
+    /**
+     * Returns the ids of the rating groups that the user collapsed in the assessment panel.
+     *
+     * @param gradingConfigPath the path of the grading config
+     * @return the ids of the collapsed rating groups
+     */
+    public Set<String> getCollapsedRatingGroups(String gradingConfigPath) {
+        return new HashSet<>(state.collapsedRatingGroups.getOrDefault(gradingConfigPath, List.of()));
+    }
+
+    /**
+     * Returns the ids of the rating groups that the user expanded in the assessment panel.
+     * This is only relevant for rating groups that are collapsed by default.
+     *
+     * @param gradingConfigPath the path of the grading config
+     * @return the ids of the expanded rating groups
+     */
+    public Set<String> getExpandedRatingGroups(String gradingConfigPath) {
+        return new HashSet<>(state.expandedRatingGroups.getOrDefault(gradingConfigPath, List.of()));
+    }
+
+    public void setRatingGroupCollapsed(String gradingConfigPath, String ratingGroupId, boolean isCollapsed) {
+        updateRatingGroups(state.collapsedRatingGroups, gradingConfigPath, ratingGroupId, isCollapsed);
+        updateRatingGroups(state.expandedRatingGroups, gradingConfigPath, ratingGroupId, !isCollapsed);
+    }
+
+    private static void updateRatingGroups(
+            Map<String, List<String>> ratingGroups, String gradingConfigPath, String ratingGroupId, boolean contains) {
+        List<String> ids = ratingGroups.computeIfAbsent(gradingConfigPath, key -> new ArrayList<>());
+        if (contains && !ids.contains(ratingGroupId)) {
+            ids.add(ratingGroupId);
+        } else if (!contains) {
+            ids.remove(ratingGroupId);
+        }
+
+        if (ids.isEmpty()) {
+            ratingGroups.remove(gradingConfigPath);
+        }
+    }
 }
@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.tool_windows;
 
 import com.intellij.openapi.project.Project;
@@ -15,7 +15,8 @@ public class AnnotationsToolWindowFactory implements ToolWindowFactory {
 
     @Override
     public void createToolWindowContent(@NonNull Project project, @NonNull ToolWindow toolWindow) {
-        var content = ContentFactory.getInstance().createContent(new AnnotationsListPanel(), null, false);
+        var content = ContentFactory.getInstance()
+                .createContent(new AnnotationsListPanel(toolWindow.getDisposable()), null, false);
         toolWindow.show();
         toolWindow.getContentManager().addContent(content);
     }
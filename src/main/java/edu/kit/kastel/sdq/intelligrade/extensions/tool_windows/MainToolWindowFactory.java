@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.extensions.tool_windows;
 
 import com.intellij.openapi.project.DumbAware;
@@ -24,9 +24,11 @@ public class MainToolWindowFactory implements ToolWindowFactory, DumbAware {
                         ContentFactory.getInstance().createContent(new ExercisePanel(toolWindow), "Exercise", false));
         toolWindow
                 .getContentManager()
-                .addContent(ContentFactory.getInstance().createContent(new AssessmentPanel(), "Grading", false));
+                .addContent(ContentFactory.getInstance()
+                        .createContent(new AssessmentPanel(toolWindow.getDisposable()), "Grading", false));
         toolWindow
                 .getContentManager()
-                .addContent(ContentFactory.getInstance().createContent(new TestCasePanel(), "Test Results", false));
+                .addContent(ContentFactory.getInstance()
+                        .createContent(new TestCasePanel(toolWindow.getDisposable()), "Test Results", false));
     }
 }
@@ -1,11 +1,16 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.highlighter;
 
 import java.awt.Font;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.IdentityHashMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.stream.Collectors;
 
 import javax.swing.Icon;
@@ -15,7 +20,14 @@ import com.intellij.openapi.actionSystem.ActionGroup;
 import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.event.EditorFactoryEvent;
+import com.intellij.openapi.editor.event.EditorFactoryListener;
 import com.intellij.openapi.editor.event.EditorMouseEvent;
 import com.intellij.openapi.editor.markup.EffectType;
 import com.intellij.openapi.editor.markup.GutterIconRenderer;
@@ -27,15 +39,19 @@ import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.FileEditorManagerListener;
 import com.intellij.openapi.fileEditor.TextEditor;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.popup.JBPopup;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.ui.AnActionButton;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
 import edu.kit.kastel.sdq.artemis4j.grading.penalty.MistakeType;
 import edu.kit.kastel.sdq.intelligrade.extensions.guis.AnnotationsListPanel;
 import edu.kit.kastel.sdq.intelligrade.extensions.settings.ArtemisSettingsState;
 import edu.kit.kastel.sdq.intelligrade.icons.ArtemisIcons;
+import edu.kit.kastel.sdq.intelligrade.state.AnnotationChangeSet;
 import edu.kit.kastel.sdq.intelligrade.state.PluginState;
 import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
 import org.jspecify.annotations.NonNull;
@@ -44,50 +60,79 @@ import org.jspecify.annotations.NonNull;
  * This class manages the highlights (the colored lines that indicate an annotation) in the editor.
  */
 public class HighlighterManager {
-    private static final Map<Editor, List<HighlighterWithAnnotations>> highlightersPerEditor = new IdentityHashMap<>();
+    private static final Logger LOG = Logger.getInstance(HighlighterManager.class);
+
+    // The highlighters are stored in the editor, so that they are released together with it
+    private static final Key<List<HighlighterWithAnnotations>> HIGHLIGHTERS =
+            Key.create("intelligrade.annotationHighlighters");
 
     // private static int lastPopupLine;
     // private static Editor lastPopupEditor;
     private static JBPopup lastPopup;
 
-    public static void initialize() {
-        var messageBus = IntellijUtil.getActiveProject().getMessageBus();
-        messageBus.connect().subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
-            @Override
-            public void fileOpened(@NonNull FileEditorManager source, @NonNull VirtualFile file) {
-                var editor = source.getSelectedTextEditor();
-
-                if (PluginState.getInstance().isAssessing() && editor != null) {
-                    editor.getDocument().setReadOnly(true);
-                    updateHighlightersForEditor(editor);
-                }
-            }
-
-            @Override
-            public void fileClosed(@NonNull FileEditorManager source, @NonNull VirtualFile file) {
-                var editor = source.getSelectedTextEditor();
-                if (editor == null) {
-                    return;
-                }
-
-                clearHighlightersForEditor(editor);
-            }
-        });
+    // The editors whose highlighters have to be recomputed by the running update, only accessed on the EDT.
+    // Weak keys, because an update might never finish, e.g. when the project is closed.
+    private static final Set<Editor> pendingEditors = Collections.newSetFromMap(new WeakHashMap<>());
+
+    public static void initialize(Project project) {
+        var messageBus = project.getMessageBus();
+        messageBus
+                .connect(project)
+                .subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+                    @Override
+                    public void fileOpened(@NonNull FileEditorManager source, @NonNull VirtualFile file) {
+                        if (!PluginState.getInstance().isAssessing()) {
+                            return;
+                        }
+
+                        // only the editors of the opened file need highlighters, the others are up to date
+                        List<Editor> editors = new ArrayList<>();
+                        for (var fileEditor : source.getEditors(file)) {
+                            if (fileEditor instanceof TextEditor textEditor) {
+                                textEditor.getEditor().getDocument().setReadOnly(true);
+                                editors.add(textEditor.getEditor());
+                            }
+                        }
+
+                        scheduleHighlighterUpdate(editors);
+                    }
+                });
+
+        // The editors of a closed file are released, this drops everything that is tracked for them
+        EditorFactory.getInstance()
+                .addEditorFactoryListener(
+                        new EditorFactoryListener() {
+                            @Override
+                            public void editorReleased(@NonNull EditorFactoryEvent event) {
+                                event.getEditor().putUserData(HIGHLIGHTERS, null);
+                                InlineAnnotationHints.clear(event.getEditor());
+                            }
+                        },
+                        project);
 
         PluginState.getInstance()
-                .registerAssessmentStartedListener(assessment -> assessment.registerAnnotationsUpdatedListener(
-                        annotations -> updateHighlightersForAllEditors()));
+                .registerAssessmentStartedListener(
+                        assessment -> assessment.registerAnnotationChangeListener(
+                                HighlighterManager::updateHighlightersForChanges, project),
+                        project);
 
         // When an assessment is closed, clear everything
-        PluginState.getInstance().registerAssessmentClosedListener(() -> {
-            highlightersPerEditor.clear();
-            cancelLastPopup();
-        });
+        PluginState.getInstance()
+                .registerAssessmentClosedListener(
+                        () -> {
+                            for (var editor : EditorFactory.getInstance().getAllEditors()) {
+                                if (editor.getProject() == project && !editor.isDisposed()) {
+                                    clearHighlightersForEditor(editor);
+                                }
+                            }
+                            cancelLastPopup();
+                        },
+                        project);
     }
 
     public static void onMouseMovedInEditor(EditorMouseEvent e) {
         // TODO Later implement feature
-        // var highlighters = highlightersPerEditor.get(e.getEditor());
+        // var highlighters = e.getEditor().getUserData(HIGHLIGHTERS);
         // if (highlighters == null) {
         //     return;
         // }
@@ -132,61 +177,85 @@ public class HighlighterManager {
     }
 
     /**
-     * Creates a highlighter for all the provided annotations that start on that line.
+     * Computes the highlight ranges for all the provided annotations of a single file.
+     * <p>
+     * This only reads from the document and is therefore safe to call from a background thread,
+     * as long as it is called inside a read action.
      *
-     * @param editor the editor on which the highlighter should be created
-     * @param annotations the annotations to be highlighted
+     * @param document the document of the file
+     * @param annotations the annotations in the file
+     * @return one entry per line on which at least one annotation starts
      */
-    private static void createHighlighter(Editor editor, List<Annotation> annotations) {
-        var document = FileDocumentManager.getInstance().getDocument(editor.getVirtualFile());
+    private static List<LineHighlights> computeHighlights(Document document, List<Annotation> annotations) {
+        Map<Integer, List<Annotation>> annotationsByLine = new LinkedHashMap<>();
+        for (Annotation annotation : annotations) {
+            if (annotation.getLocation().end().line() >= document.getLineCount()) {
+                // e.g. the file has been changed since the annotation was created
+                LOG.warn("Annotation %s in %s ends at line %d, but the file only has %d lines"
+                        .formatted(
+                                annotation.getUUID(),
+                                annotation.getFilePath(),
+                                annotation.getLocation().end().line(),
+                                document.getLineCount()));
+                continue;
+            }
 
-        if (document == null) {
-            return;
+            annotationsByLine.computeIfAbsent(annotation.getStartLine(), line -> new ArrayList<>()).add(annotation);
         }
 
-        var annotationColor = ArtemisSettingsState.getInstance().getAnnotationColor();
+        List<LineHighlights> result = new ArrayList<>(annotationsByLine.size());
+        for (var entry : annotationsByLine.entrySet()) {
+            var lineAnnotations = entry.getValue();
+            List<HighlightRange> ranges = new ArrayList<>(lineAnnotations.size());
+            for (Annotation annotation : lineAnnotations) {
+                ranges.add(computeRange(document, annotation));
+            }
 
-        List<RangeHighlighter> highlighters = new ArrayList<>();
-        for (Annotation annotation : annotations) {
-            // Lines that have NONE as highlight, should still be highlighted, but invisible to the user.
-            // This is necessary for the gutter icon.
-            var attributes = new TextAttributes(
-                    null, annotationColor.toJBColor(), null, EffectType.BOLD_LINE_UNDERSCORE, Font.PLAIN);
+            result.add(new LineHighlights(
+                    entry.getKey(),
+                    ranges,
+                    lineAnnotations,
+                    createGutterTooltip(lineAnnotations),
+                    createInlineHint(lineAnnotations)));
+        }
 
-            if (annotation.getMistakeType().getHighlight() == MistakeType.Highlight.NONE) {
-                attributes = new TextAttributes();
-            }
+        return result;
+    }
 
-            var location = annotation.getLocation();
-
-            // resolve the start of the annotation (the start offset of the line + column)
-            int startOffset = document.getLineStartOffset(location.start().line())
-                    + location.start().column().orElse(0);
-            // if the column is present, it has to be added to the start offset of the last line
-            // otherwise the end offset is the end of the line
-            //
-            // The endOffset seems to be exclusive. The getLineEndOffset will return the correct offset,
-            // but for our calculated column through the start offset, we have to add 1 to obtain the correct end
-            // offset.
-            int endOffset = location.end()
-                    .column()
-                    .map(endColumn -> document.getLineStartOffset(location.end().line()) + endColumn + 1)
-                    .orElseGet(() -> document.getLineEndOffset(location.end().line()));
-
-            var range = HighlighterTargetArea.EXACT_RANGE;
-            if (startOffset == endOffset || startOffset + 1 == endOffset) {
-                // if the start and end offset are the same, we highlight the entire line
-                range = HighlighterTargetArea.LINES_IN_RANGE;
-            }
+    private static HighlightRange computeRange(Document document, Annotation annotation) {
+        // Lines that have NONE as highlight, should still be highlighted, but invisible to the user.
+        // This is necessary for the gutter icon.
+        var style = annotation.getMistakeType().getHighlight() == MistakeType.Highlight.NONE
+                ? HighlightStyle.INVISIBLE
+                : HighlightStyle.UNDERLINED;
 
-            highlighters.add(editor.getMarkupModel()
-                    .addRangeHighlighter(startOffset, endOffset, HighlighterLayer.SELECTION - 1, attributes, range));
+        var location = annotation.getLocation();
+
+        // resolve the start of the annotation (the start offset of the line + column)
+        int startOffset = document.getLineStartOffset(location.start().line())
+                + location.start().column().orElse(0);
+        // if the column is present, it has to be added to the start offset of the last line
+        // otherwise the end offset is the end of the line
+        //
+        // The endOffset seems to be exclusive. The getLineEndOffset will return the correct offset,
+        // but for our calculated column through the start offset, we have to add 1 to obtain the correct end
+        // offset.
+        int endOffset = location.end()
+                .column()
+                .map(endColumn -> document.getLineStartOffset(location.end().line()) + endColumn + 1)
+                .orElseGet(() -> document.getLineEndOffset(location.end().line()));
+
+        var range = HighlighterTargetArea.EXACT_RANGE;
+        if (startOffset == endOffset || startOffset + 1 == endOffset) {
+            // if the start and end offset are the same, we highlight the entire line
+            range = HighlighterTargetArea.LINES_IN_RANGE;
         }
 
-        // use the first highlighter for the gutter icon
-        var highlighter = highlighters.getFirst();
+        return new HighlightRange(startOffset, endOffset, HighlighterLayer.SELECTION - 1, style, range);
+    }
 
-        String gutterTooltip = annotations.stream()
+    private static String createGutterTooltip(List<Annotation> annotations) {
+        return annotations.stream()
                 .map(a -> {
                     String text = "<strong>"
                             + a.getMistakeType().getButtonText().translateTo(DynamicBundle.getLocale()) + "</strong>";
@@ -201,10 +270,75 @@ public class HighlighterManager {
                     return text;
                 })
                 .collect(Collectors.joining("<br><br>"));
+    }
 
+    private static String createInlineHint(List<Annotation> annotations) {
+        return annotations.stream()
+                .map(a -> {
+                    String text = a.getMistakeType().getButtonText().translateTo(DynamicBundle.getLocale());
+                    if (a.getCustomMessage().isPresent()) {
+                        text += ": " + StringUtil.shortenTextWithEllipsis(a.getCustomMessage().get(), 120, 0);
+                    }
+
+                    return text;
+                })
+                .collect(Collectors.joining("  |  "));
+    }
+
+    /**
+     * Creates the highlighters for all the provided precomputed lines.
+     * <p>
+     * This must be called on the EDT, and should do as little work as possible.
+     *
+     * @param editor the editor on which the highlighters should be created
+     * @param lines the precomputed highlights, one entry per line
+     */
+    private static void applyHighlights(Editor editor, List<LineHighlights> lines) {
+        // the inline hints are not cleared, they only update the lines that changed
+        editor.getMarkupModel().removeAllHighlighters();
+
+        var annotationColor = ArtemisSettingsState.getInstance().getAnnotationColor();
+        var underlinedAttributes = new TextAttributes(
+                null, annotationColor.toJBColor(), null, EffectType.BOLD_LINE_UNDERSCORE, Font.PLAIN);
+        var invisibleAttributes = new TextAttributes();
+
+        var markupModel = editor.getMarkupModel();
+        List<HighlighterWithAnnotations> created = new ArrayList<>();
+        for (LineHighlights line : lines) {
+            List<RangeHighlighter> highlighters = new ArrayList<>(line.ranges().size());
+            for (HighlightRange range : line.ranges()) {
+                var attributes = switch (range.style()) {
+                    case UNDERLINED -> underlinedAttributes;
+                    case INVISIBLE -> invisibleAttributes;
+                };
+
+                highlighters.add(markupModel.addRangeHighlighter(
+                        range.startOffset(), range.endOffset(), range.layer(), attributes, range.targetArea()));
+            }
+
+            // use the first highlighter for the gutter icon
+            highlighters.getFirst().setGutterIconRenderer(createGutterIconRenderer(line));
+
+            for (int i = 0; i < highlighters.size(); i++) {
+                created.add(new HighlighterWithAnnotations(
+                        highlighters.get(i), List.of(line.annotations().get(i))));
+            }
+        }
+
+        editor.putUserData(HIGHLIGHTERS, created);
+
+        InlineAnnotationHints.apply(
+                editor,
+                lines.stream()
+                        .map(line -> new InlineAnnotationHints.Hint(line.line(), line.inlineHint()))
+                        .toList());
+    }
+
+    private static GutterIconRenderer createGutterIconRenderer(LineHighlights line) {
+        var annotations = line.annotations();
         var popupActions = getGutterPopupActions(annotations);
 
-        highlighter.setGutterIconRenderer(new GutterIconRenderer() {
+        return new GutterIconRenderer() {
             @Override
             public boolean equals(Object o) {
                 // TODO implement some actually useful equals method
@@ -228,7 +362,7 @@ public class HighlighterManager {
 
             @Override
             public String getTooltipText() {
-                return gutterTooltip;
+                return line.gutterTooltip();
             }
 
             @Override
@@ -240,14 +374,7 @@ public class HighlighterManager {
             public boolean isDumbAware() {
                 return true;
             }
-        });
-
-        highlightersPerEditor.computeIfAbsent(editor, e -> new ArrayList<>());
-        for (int i = 0; i < highlighters.size(); i++) {
-            highlightersPerEditor
-                    .get(editor)
-                    .add(new HighlighterWithAnnotations(highlighters.get(i), List.of(annotations.get(i))));
-        }
+        };
     }
 
     private static void cancelLastPopup() {
@@ -261,44 +388,142 @@ public class HighlighterManager {
         // }
     }
 
-    private static void updateHighlightersForAllEditors() {
+    /**
+     * Recomputes the highlighters of all open editors, e.g. after the settings changed.
+     */
+    public static void updateHighlightersForAllEditors() {
         if (!PluginState.getInstance().isAssessing()) {
             return;
         }
 
-        var editors =
+        var fileEditors =
                 FileEditorManager.getInstance(IntellijUtil.getActiveProject()).getAllEditors();
-        for (var editor : editors) {
-            updateHighlightersForEditor(((TextEditor) editor).getEditor());
+        List<Editor> editors = new ArrayList<>();
+        for (var editor : fileEditors) {
+            if (editor instanceof TextEditor textEditor) {
+                editors.add(textEditor.getEditor());
+            }
         }
 
+        scheduleHighlighterUpdate(editors);
+
         cancelLastPopup();
     }
 
-    private static void updateHighlightersForEditor(Editor editor) {
+    /**
+     * Recomputes the highlighters of the editors that show a file in which an annotation changed.
+     *
+     * @param changes the changes of the annotations
+     */
+    private static void updateHighlightersForChanges(AnnotationChangeSet changes) {
+        if (!PluginState.getInstance().isAssessing()) {
+            return;
+        }
+
+        Set<Path> changedPaths = new HashSet<>();
+        for (Annotation annotation : changes.changedAnnotations()) {
+            changedPaths.add(IntellijUtil.getAnnotationPath(annotation));
+        }
+
+        var fileEditors =
+                FileEditorManager.getInstance(IntellijUtil.getActiveProject()).getAllEditors();
+        List<Editor> editors = new ArrayList<>();
+        for (var editor : fileEditors) {
+            if (editor instanceof TextEditor textEditor
+                    && editor.getFile() != null
+                    && editor.getFile().isInLocalFileSystem()
+                    && changedPaths.contains(editor.getFile().toNioPath())) {
+                editors.add(textEditor.getEditor());
+            }
+        }
+
+        scheduleHighlighterUpdate(editors);
+    }
+
+    /**
+     * Recomputes the highlighters of the given editors.
+     * <p>
+     * Translating the annotation locations into document offsets and grouping them by line is done
+     * in a non-blocking read action on a background thread. Only the creation of the highlighters
+     * happens on the EDT, in a single step per editor.
+     * <p>
+     * Only the latest update is relevant, so a new update will cancel any update that is still running.
+     * The editors of a cancelled update are included in the next one.
+     *
+     * @param editors the editors to update
+     */
+    private static void scheduleHighlighterUpdate(List<Editor> editors) {
+        var project = IntellijUtil.getActiveProject();
+
+        pendingEditors.addAll(editors);
+
         // E.g. decompiled classes are not in the local file system
         // Since they are never part of an assessment, ignore them
-        if (!editor.getVirtualFile().isInLocalFileSystem()) {
+        Map<VirtualFile, List<Editor>> editorsByFile = new LinkedHashMap<>();
+        for (var editor : pendingEditors) {
+            var file = editor.getVirtualFile();
+            if (!editor.isDisposed() && file != null && file.isInLocalFileSystem()) {
+                editorsByFile.computeIfAbsent(file, f -> new ArrayList<>()).add(editor);
+            }
+        }
+
+        if (editorsByFile.isEmpty()) {
             return;
         }
 
-        clearHighlightersForEditor(editor);
-
-        var filePath = editor.getVirtualFile().toNioPath();
-        var state = PluginState.getInstance();
-        var assessment = state.getActiveAssessment().orElseThrow().getAssessment();
-        var annotationsByLine = assessment
-                .streamAllAnnotations(false)
-                .filter(a -> IntellijUtil.getAnnotationPath(a).equals(filePath))
-                .collect(Collectors.groupingBy(Annotation::getStartLine));
-        for (var annotations : annotationsByLine.values()) {
-            createHighlighter(editor, annotations);
+        // Take a snapshot of the annotations, the assessment may change while the highlights are computed.
+        // The navigation index already has them by file, so only the annotations of the updated files are copied.
+        var activeAssessment = PluginState.getInstance().getActiveAssessment().orElseThrow();
+        Map<VirtualFile, List<Annotation>> annotationsByFile = new LinkedHashMap<>();
+        for (var file : editorsByFile.keySet()) {
+            annotationsByFile.put(
+                    file,
+                    IntellijUtil.getAssignmentRelativePath(file)
+                            .map(path -> activeAssessment.getNavigationIndex().listAnnotationsInFile(path))
+                            .orElse(List.of()));
+        }
+
+        // The highlights belong to this assessment, they must not be applied once it has been closed
+        ReadAction.nonBlocking(() -> computeHighlightsPerFile(annotationsByFile))
+                .coalesceBy(HighlighterManager.class)
+                .expireWith(project)
+                .expireWith(activeAssessment)
+                .finishOnUiThread(ModalityState.defaultModalityState(), highlightsPerFile -> {
+                    if (PluginState.getInstance().getActiveAssessment().orElse(null) != activeAssessment) {
+                        return;
+                    }
+
+                    pendingEditors.clear();
+                    for (var entry : highlightsPerFile.entrySet()) {
+                        for (var editor : editorsByFile.get(entry.getKey())) {
+                            if (!editor.isDisposed()) {
+                                applyHighlights(editor, entry.getValue());
+                            }
+                        }
+                    }
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private static Map<VirtualFile, List<LineHighlights>> computeHighlightsPerFile(
+            Map<VirtualFile, List<Annotation>> annotationsByFile) {
+        Map<VirtualFile, List<LineHighlights>> result = new LinkedHashMap<>();
+        for (var entry : annotationsByFile.entrySet()) {
+            var document = FileDocumentManager.getInstance().getDocument(entry.getKey());
+            if (document == null) {
+                continue;
+            }
+
+            result.put(entry.getKey(), computeHighlights(document, entry.getValue()));
         }
+
+        return result;
     }
 
     private static void clearHighlightersForEditor(Editor editor) {
-        highlightersPerEditor.remove(editor);
+        editor.putUserData(HIGHLIGHTERS, null);
         editor.getMarkupModel().removeAllHighlighters();
+        InlineAnnotationHints.clear(editor);
     }
 
     private static ActionGroup getGutterPopupActions(List<Annotation> annotations) {
@@ -336,4 +561,25 @@ public class HighlighterManager {
     }
 
     private record HighlighterWithAnnotations(RangeHighlighter highlighter, List<Annotation> annotation) {}
+
+    private enum HighlightStyle {
+        UNDERLINED,
+        INVISIBLE
+    }
+
+    /**
+     * The precomputed document range of a single annotation.
+     */
+    private record HighlightRange(
+            int startOffset, int endOffset, int layer, HighlightStyle style, HighlighterTargetArea targetArea) {}
+
+    /**
+     * All annotations that start on the same line. They share a single gutter icon.
+     */
+    private record LineHighlights(
+            int line,
+            List<HighlightRange> ranges,
+            List<Annotation> annotations,
+            String gutterTooltip,
+            String inlineHint) {}
 }
@@ -0,0 +1,271 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.highlighter;
+
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorCustomElementRenderer;
+import com.intellij.openapi.editor.Inlay;
+import com.intellij.openapi.editor.colors.EditorFontType;
+import com.intellij.openapi.editor.event.VisibleAreaEvent;
+import com.intellij.openapi.editor.event.VisibleAreaListener;
+import com.intellij.openapi.editor.ex.util.EditorUtil;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Key;
+import com.intellij.util.text.CharArrayUtil;
+import edu.kit.kastel.sdq.intelligrade.extensions.settings.ArtemisSettingsState;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Shows the mistake type and custom message of the annotations as a block element above the annotated line.
+ * <p>
+ * A file can have hundreds of autograder annotations, so inlays are only created for the visible lines
+ * (plus a margin). When the visible area leaves that window, the inlays outside the new window are removed
+ * and their renderers are reused for the inlays that come into view.
+ */
+final class InlineAnnotationHints {
+    private static final Key<EditorHints> EDITOR_HINTS = Key.create("intelligrade.inlineAnnotationHints");
+
+    // Number of lines above and below the visible area for which inlays are created
+    private static final int MARGIN_LINES = 50;
+
+    /**
+     * The text that should be shown above the given (0-based) line.
+     */
+    record Hint(int line, String text) {}
+
+    private InlineAnnotationHints() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Replaces the hints of the editor. Inlays whose text did not change are kept.
+     * <p>
+     * Must be called on the EDT.
+     *
+     * @param editor the editor
+     * @param hints the hints, at most one per line
+     */
+    static void apply(Editor editor, List<Hint> hints) {
+        if (!ArtemisSettingsState.getInstance().isShowInlineAnnotationHints()) {
+            clear(editor);
+            return;
+        }
+
+        var editorHints = editor.getUserData(EDITOR_HINTS);
+        if (editorHints == null) {
+            editorHints = new EditorHints(editor);
+            editor.putUserData(EDITOR_HINTS, editorHints);
+        }
+
+        editorHints.setHints(hints);
+    }
+
+    /**
+     * Removes all hints from the editor and stops tracking its visible area.
+     *
+     * @param editor the editor
+     */
+    static void clear(Editor editor) {
+        var editorHints = editor.getUserData(EDITOR_HINTS);
+        if (editorHints != null) {
+            Disposer.dispose(editorHints.disposable);
+        }
+    }
+
+    private static final class EditorHints implements VisibleAreaListener {
+        private final Editor editor;
+        private final Disposable disposable = Disposer.newDisposable("IntelliGrade inline annotation hints");
+        private final Map<Integer, Inlay<HintRenderer>> inlaysPerLine = new HashMap<>();
+        private final Deque<HintRenderer> unusedRenderers = new ArrayDeque<>();
+
+        // sorted by line
+        private List<Hint> hints = List.of();
+        // the lines for which inlays are currently materialized (inclusive)
+        private int windowStart = 0;
+        private int windowEnd = -1;
+        private boolean isUpdating = false;
+
+        private EditorHints(Editor editor) {
+            this.editor = editor;
+
+            editor.getScrollingModel().addVisibleAreaListener(this, this.disposable);
+            EditorUtil.disposeWithEditor(editor, this.disposable);
+            Disposer.register(this.disposable, this::release);
+        }
+
+        private void setHints(List<Hint> hints) {
+            this.hints = hints.stream().sorted(Comparator.comparingInt(Hint::line)).toList();
+
+            Map<Integer, String> textPerLine = new HashMap<>();
+            for (Hint hint : this.hints) {
+                textPerLine.put(hint.line(), hint.text());
+            }
+
+            // keep the inlays that are still up-to-date, so that nothing flickers
+            var iterator = this.inlaysPerLine.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (!Objects.equals(textPerLine.get(entry.getKey()), entry.getValue().getRenderer().text)) {
+                    this.recycle(entry.getValue());
+                    iterator.remove();
+                }
+            }
+
+            this.updateWindow(true);
+        }
+
+        @Override
+        public void visibleAreaChanged(@NonNull VisibleAreaEvent event) {
+            this.updateWindow(false);
+        }
+
+        private void updateWindow(boolean force) {
+            // adding inlays can change the visible area, which would call this method again
+            if (this.isUpdating || this.editor.isDisposed()) {
+                return;
+            }
+
+            Rectangle visibleArea = this.editor.getScrollingModel().getVisibleArea();
+            int firstVisibleLine = this.editor.xyToLogicalPosition(new Point(0, visibleArea.y)).line;
+            int lastVisibleLine = this.editor.xyToLogicalPosition(new Point(0, visibleArea.y + visibleArea.height))
+                    .line;
+
+            if (!force && firstVisibleLine >= this.windowStart && lastVisibleLine <= this.windowEnd) {
+                return;
+            }
+
+            this.windowStart = Math.max(0, firstVisibleLine - MARGIN_LINES);
+            this.windowEnd = lastVisibleLine + MARGIN_LINES;
+
+            this.isUpdating = true;
+            try {
+                this.editor.getInlayModel().execute(true, this::materializeWindow);
+            } finally {
+                this.isUpdating = false;
+            }
+        }
+
+        private void materializeWindow() {
+            var iterator = this.inlaysPerLine.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (entry.getKey() < this.windowStart || entry.getKey() > this.windowEnd) {
+                    this.recycle(entry.getValue());
+                    iterator.remove();
+                }
+            }
+
+            var document = this.editor.getDocument();
+            for (int i = this.firstHintIndexAtOrAfter(this.windowStart); i < this.hints.size(); i++) {
+                Hint hint = this.hints.get(i);
+                if (hint.line() > this.windowEnd || hint.line() >= document.getLineCount()) {
+                    break;
+                }
+
+                if (this.inlaysPerLine.containsKey(hint.line())) {
+                    continue;
+                }
+
+                // the hint is indented like the code of the line
+                int lineStartOffset = document.getLineStartOffset(hint.line());
+                int codeStartOffset = CharArrayUtil.shiftForward(
+                        document.getCharsSequence(), lineStartOffset, document.getLineEndOffset(hint.line()), " \t");
+                int indent = this.editor.offsetToXY(codeStartOffset).x
+                        - this.editor.offsetToXY(lineStartOffset).x;
+
+                var renderer = this.unusedRenderers.isEmpty() ? new HintRenderer() : this.unusedRenderers.pop();
+                renderer.update(hint.text(), indent);
+
+                var inlay = this.editor.getInlayModel().addBlockElement(lineStartOffset, false, true, 0, renderer);
+                if (inlay == null) {
+                    this.unusedRenderers.push(renderer);
+                } else {
+                    this.inlaysPerLine.put(hint.line(), inlay);
+                }
+            }
+        }
+
+        private int firstHintIndexAtOrAfter(int line) {
+            int low = 0;
+            int high = this.hints.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.hints.get(middle).line() < line) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private void recycle(Inlay<HintRenderer> inlay) {
+            this.unusedRenderers.push(inlay.getRenderer());
+            Disposer.dispose(inlay);
+        }
+
+        private void release() {
+            // when the editor is disposed, its inlays are disposed as well
+            if (!this.editor.isDisposed()) {
+                for (var inlay : this.inlaysPerLine.values()) {
+                    Disposer.dispose(inlay);
+                }
+            }
+
+            this.inlaysPerLine.clear();
+            this.unusedRenderers.clear();
+            this.hints = List.of();
+            this.editor.putUserData(EDITOR_HINTS, null);
+        }
+    }
+
+    private static final class HintRenderer implements EditorCustomElementRenderer {
+        private static final int PADDING = 8;
+
+        private String text = "";
+        private int indent;
+
+        private void update(String text, int indent) {
+            this.text = text;
+            this.indent = indent;
+        }
+
+        private static FontMetrics getFontMetrics(Editor editor) {
+            return editor.getContentComponent()
+                    .getFontMetrics(editor.getColorsScheme().getFont(EditorFontType.ITALIC));
+        }
+
+        @Override
+        public int calcWidthInPixels(@NonNull Inlay inlay) {
+            return this.indent + getFontMetrics(inlay.getEditor()).stringWidth(this.text) + PADDING;
+        }
+
+        @Override
+        public void paint(
+                @NonNull Inlay inlay,
+                @NonNull Graphics g,
+                @NonNull Rectangle targetRegion,
+                @NonNull TextAttributes textAttributes) {
+            var editor = inlay.getEditor();
+            var fontMetrics = getFontMetrics(editor);
+
+            g.setFont(fontMetrics.getFont());
+            g.setColor(ArtemisSettingsState.getInstance().getAnnotationColor().toJBColor());
+            g.drawString(this.text, targetRegion.x + this.indent, targetRegion.y + editor.getAscent());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.highlighter;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.colors.EditorColors;
+import com.intellij.openapi.editor.event.EditorFactoryEvent;
+import com.intellij.openapi.editor.event.EditorFactoryListener;
+import com.intellij.openapi.editor.impl.DocumentMarkupModel;
+import com.intellij.openapi.editor.markup.HighlighterLayer;
+import com.intellij.openapi.editor.markup.HighlighterTargetArea;
+import com.intellij.openapi.editor.markup.LineMarkerRenderer;
+import com.intellij.openapi.editor.markup.RangeHighlighter;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.ui.scale.JBUIScale;
+import edu.kit.kastel.sdq.intelligrade.templatediff.TemplateDiff;
+import edu.kit.kastel.sdq.intelligrade.templatediff.TemplateDiffService;
+import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Marks the lines that the student added or modified compared to the template in the gutter of the editor.
+ * <p>
+ * The markers are added to the markup model of the document and not to the one of the editor,
+ * because the {@link HighlighterManager} replaces all highlighters of the editor on every update.
+ */
+public final class TemplateDiffMarkers {
+    private static final Key<DocumentMarkers> MARKERS = Key.create("intelligrade.templateDiffMarkers");
+
+    private static final LineMarkerRenderer RENDERER = new LineMarkerRenderer() {
+        @Override
+        public void paint(@NonNull Editor editor, @NonNull Graphics g, @NonNull Rectangle r) {
+            // use the color of the VCS markers, so that the markers fit the color scheme
+            g.setColor(editor.getColorsScheme().getColor(EditorColors.MODIFIED_LINES_COLOR));
+            g.fillRect(r.x, r.y, JBUIScale.scale(3), r.height);
+        }
+    };
+
+    /**
+     * The markers of a document and the diff they were created for.
+     */
+    private record DocumentMarkers(TemplateDiff diff, List<RangeHighlighter> highlighters) {}
+
+    private TemplateDiffMarkers() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static void initialize(Project project) {
+        TemplateDiffService.getInstance().registerDiffChangedListener(() -> updateAllDocuments(project), project);
+
+        // The markers are created lazily, when an editor for a document is opened for the first time
+        EditorFactory.getInstance()
+                .addEditorFactoryListener(
+                        new EditorFactoryListener() {
+                            @Override
+                            public void editorCreated(@NonNull EditorFactoryEvent event) {
+                                if (event.getEditor().getProject() == project) {
+                                    updateDocument(project, event.getEditor().getDocument());
+                                }
+                            }
+                        },
+                        project);
+    }
+
+    private static void updateAllDocuments(Project project) {
+        if (project.isDisposed()) {
+            return;
+        }
+
+        Set<Document> documents = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Editor editor : EditorFactory.getInstance().getAllEditors()) {
+            if (editor.getProject() == project && !editor.isDisposed()) {
+                documents.add(editor.getDocument());
+            }
+        }
+
+        for (Document document : documents) {
+            updateDocument(project, document);
+        }
+    }
+
+    /**
+     * Replaces the markers of the document with the ones of the current diff, if they are outdated.
+     * Must be called on the EDT.
+     */
+    private static void updateDocument(Project project, Document document) {
+        var diff = TemplateDiffService.getInstance().getDiff();
+        var markers = document.getUserData(MARKERS);
+        if (markers != null && markers.diff() == diff) {
+            return;
+        }
+
+        var markupModel = DocumentMarkupModel.forDocument(document, project, true);
+        if (markers != null) {
+            for (RangeHighlighter highlighter : markers.highlighters()) {
+                markupModel.removeHighlighter(highlighter);
+            }
+        }
+
+        var file = FileDocumentManager.getInstance().getFile(document);
+        var lines = file == null
+                ? List.<TemplateDiff.LineRange>of()
+                : IntellijUtil.getAssignmentRelativePath(file)
+                        .map(diff::getChangedLines)
+                        .orElse(List.of());
+
+        List<RangeHighlighter> highlighters = new ArrayList<>(lines.size());
+        for (TemplateDiff.LineRange range : lines) {
+            // the document should match the diffed commit, but the last line might be missing
+            int lastLine = Math.min(range.end(), document.getLineCount()) - 1;
+            if (range.start() > lastLine) {
+                continue;
+            }
+
+            var highlighter = markupModel.addRangeHighlighter(
+                    document.getLineStartOffset(range.start()),
+                    document.getLineEndOffset(lastLine),
+                    HighlighterLayer.FIRST,
+                    null,
+                    HighlighterTargetArea.LINES_IN_RANGE);
+            highlighter.setLineMarkerRenderer(RENDERER);
+            highlighter.setErrorStripeTooltip("Changed compared to the template");
+            highlighters.add(highlighter);
+        }
+
+        document.putUserData(MARKERS, new DocumentMarkers(diff, highlighters));
+    }
+}
@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.listeners;
 
 import com.intellij.openapi.application.ApplicationManager;
@@ -7,7 +7,10 @@ import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.startup.ProjectActivity;
 import com.intellij.openapi.wm.ToolWindowManager;
+import edu.kit.kastel.sdq.intelligrade.extensions.projectview.AnnotationCountDecorator;
+import edu.kit.kastel.sdq.intelligrade.extensions.projectview.ChangedFilesScopeProvider;
 import edu.kit.kastel.sdq.intelligrade.highlighter.HighlighterManager;
+import edu.kit.kastel.sdq.intelligrade.highlighter.TemplateDiffMarkers;
 import kotlin.Unit;
 import kotlin.coroutines.Continuation;
 import org.jspecify.annotations.NonNull;
@@ -17,9 +20,12 @@ public class OnStartupCompleted implements ProjectActivity, DumbAware {
     @Nullable
     @Override
     public Object execute(@NonNull Project project, @NonNull Continuation<? super Unit> continuation) {
-        HighlighterManager.initialize();
+        HighlighterManager.initialize(project);
+        AnnotationCountDecorator.initialize(project);
+        ChangedFilesScopeProvider.initialize(project);
+        TemplateDiffMarkers.initialize(project);
 
-        project.getMessageBus().connect().subscribe(DumbService.DUMB_MODE, FileOpener.getInstance());
+        project.getMessageBus().connect(project).subscribe(DumbService.DUMB_MODE, FileOpener.getInstance());
 
         // Open the Artemis tool window
         ApplicationManager.getApplication().invokeLater(() -> ToolWindowManager.getInstance(project)
@@ -1,15 +1,26 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.state;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.TextRange;
 import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
 import edu.kit.kastel.sdq.artemis4j.grading.Assessment;
@@ -25,24 +36,148 @@ import edu.kit.kastel.sdq.intelligrade.extensions.settings.AutograderOption;
 import edu.kit.kastel.sdq.intelligrade.utils.ArtemisUtils;
 import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
 
-public class ActiveAssessment {
+/**
+ * The assessment that is currently graded in the IDE.
+ * <p>
+ * It is disposed once it is no longer active, which removes all listeners that were registered on it.
+ * Anything that has to be released together with the assessment can use it as a parent disposable.
+ */
+public class ActiveAssessment implements Disposable {
     private static final Logger LOG = Logger.getInstance(ActiveAssessment.class);
 
     public static final Path ASSIGNMENT_SUB_PATH = Path.of("assignment");
 
-    private final List<Consumer<List<Annotation>>> annotationsUpdatedListener = new ArrayList<>();
+    private final ListenerList<Consumer<AnnotationChangeSet>> annotationChangeListener = new ListenerList<>();
+    private final ListenerList<Consumer<Set<String>>> annotationCountsChangedListener = new ListenerList<>();
+    private final ListenerList<Consumer<ScoreModel.Changes>> scoreChangedListener = new ListenerList<>();
 
     private final Assessment assessment;
     private final ClonedProgrammingSubmission clonedSubmission;
+    private final AnnotationHistory history;
+    // Loaded in the background, so that starting the assessment is not delayed
+    private final CompletableFuture<MessageLibrary> messageLibrary;
+
+    // The annotations of the last change set that was sent to the listeners, and the state they had then.
+    // These are only accessed on the EDT.
+    private List<Annotation> annotations = List.of();
+    private Map<Annotation, AnnotationState> annotationStates = new IdentityHashMap<>();
+    private final FileAnnotationCounter fileAnnotationCounter = new FileAnnotationCounter();
+    private final AnnotationNavigationIndex navigationIndex = new AnnotationNavigationIndex();
+    private final ScoreModel scoreModel;
+    // Only computed in review mode, recomputed with every change set
+    private ReviewDiff reviewDiff = ReviewDiff.EMPTY;
+    // The annotations that the tutor has to check, e.g. because the student changed their lines.
+    // A deleted annotation keeps its mark, so that it is marked again if an undo or redo creates it again.
+    // Only accessed on the EDT.
+    private final Set<Annotation> annotationsToCheck = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Changes are collected until the EDT is free, so that a burst of changes results in a single change set
+    private final AtomicBoolean isFlushScheduled = new AtomicBoolean(false);
+    private volatile boolean isDisposed = false;
+
+    /**
+     * The properties of an annotation that can change without the annotation being replaced.
+     */
+    private record AnnotationState(String customMessage, Double customScore, boolean isSuppressed) {
+        static AnnotationState of(Annotation annotation) {
+            return new AnnotationState(
+                    annotation.getCustomMessage().orElse(null),
+                    annotation.getCustomScore().orElse(null),
+                    annotation.isSuppressed());
+        }
+    }
 
     public ActiveAssessment(Assessment assessment, ClonedProgrammingSubmission clonedSubmission) {
         this.assessment = assessment;
         this.clonedSubmission = clonedSubmission;
+        this.history = new AnnotationHistory(assessment);
+        this.scoreModel = new ScoreModel(assessment);
+        this.messageLibrary = MessageLibrary.load(assessment.getSubmission().getExercise().getId());
+
+        Disposer.register(this, this.annotationChangeListener);
+        Disposer.register(this, this.annotationCountsChangedListener);
+        Disposer.register(this, this.scoreChangedListener);
+
+        this.updateAnnotations();
+    }
+
+    /**
+     * Registers a listener that is called on the EDT with the changes whenever the annotations change.
+     * Directly after registering, it is called once with all current annotations as added.
+     * <p>
+     * The listener is removed when this assessment or the parent disposable is disposed.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the disposable of the component that registers the listener
+     */
+    public void registerAnnotationChangeListener(Consumer<AnnotationChangeSet> listener, Disposable parentDisposable) {
+        if (annotationChangeListener.add(listener, parentDisposable)) {
+            listener.accept(AnnotationChangeSet.initial(this.annotations));
+        }
+    }
+
+    /**
+     * Registers a listener that is called on the EDT with all annotations whenever they change.
+     * This is a shorthand for listeners that do not care about what changed.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the disposable of the component that registers the listener
+     * @see #registerAnnotationChangeListener(Consumer, Disposable)
+     */
+    public void registerAnnotationsUpdatedListener(Consumer<List<Annotation>> listener, Disposable parentDisposable) {
+        registerAnnotationChangeListener(changes -> listener.accept(changes.annotations()), parentDisposable);
     }
 
-    public void registerAnnotationsUpdatedListener(Consumer<List<Annotation>> listener) {
-        annotationsUpdatedListener.add(listener);
-        listener.accept(assessment.getAnnotations(true));
+    /**
+     * Registers a listener that is called with the paths of all files whose number of annotations changed.
+     * <p>
+     * The paths are relative to the assignment directory.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the disposable of the component that registers the listener
+     */
+    public void registerAnnotationCountsChangedListener(Consumer<Set<String>> listener, Disposable parentDisposable) {
+        annotationCountsChangedListener.add(listener, parentDisposable);
+    }
+
+    /**
+     * Returns the number of (non-suppressed) annotations in the given file.
+     *
+     * @param filePath the path of the file, relative to the assignment directory
+     * @return the number of annotations in the file
+     */
+    public int getAnnotationCount(String filePath) {
+        return fileAnnotationCounter.getCount(filePath);
+    }
+
+    /**
+     * Registers a listener that is called with the mistake types, rating groups and totals whose points
+     * (or number of annotations) changed. The new values can be read from the {@link #getScoreModel() score model}.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the disposable of the component that registers the listener
+     */
+    public void registerScoreChangedListener(Consumer<ScoreModel.Changes> listener, Disposable parentDisposable) {
+        scoreChangedListener.add(listener, parentDisposable);
+    }
+
+    public ScoreModel getScoreModel() {
+        return scoreModel;
+    }
+
+    /**
+     * Returns the differences between the annotations of the correction rounds, as of the last change set.
+     * Outside of review mode, there are no differences.
+     * <p>
+     * This must be called on the EDT.
+     *
+     * @return the differences between the rounds
+     */
+    public ReviewDiff getReviewDiff() {
+        return reviewDiff;
+    }
+
+    public AnnotationNavigationIndex getNavigationIndex() {
+        return navigationIndex;
     }
 
     public GradingConfig getGradingConfig() {
@@ -118,31 +253,212 @@ public class ActiveAssessment {
         } else if (withCustomMessage) {
             addPredefinedAnnotationWithCustomMessage(mistakeType, location);
         } else {
-            assessment.addPredefinedAnnotation(mistakeType, location, null);
+            var annotation = assessment.addPredefinedAnnotation(mistakeType, location, null);
+            this.history.record(new AnnotationHistory.Added(annotation));
+            this.recordMistakeTypeUse(mistakeType);
             this.notifyListeners();
         }
     }
 
-    public void deleteAnnotation(Annotation annotation) {
-        if (this.isReview()) {
-            this.assessment.suppressAnnotation(annotation);
-        } else {
-            this.assessment.removeAnnotation(annotation);
+    /**
+     * Deletes the annotations, or suppresses them in review mode.
+     * <p>
+     * Only the deletion of annotations that the tutor made in this round can be undone. Any other annotation,
+     * e.g. one of the autograder, could not be recreated with its source, classifiers and UUID, so its deletion
+     * is not recorded in the history.
+     * <p>
+     * The listeners are notified once after all annotations have been deleted.
+     *
+     * @param annotations the annotations to delete
+     */
+    public void deleteAnnotations(Collection<Annotation> annotations) {
+        if (annotations.isEmpty()) {
+            return;
+        }
+
+        boolean isReview = this.isReview();
+        List<AnnotationHistory.Edit> edits = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            if (isReview) {
+                if (!annotation.isSuppressed()) {
+                    this.assessment.suppressAnnotation(annotation);
+                    edits.add(new AnnotationHistory.SuppressionChanged(annotation, true));
+                }
+            } else {
+                this.assessment.removeAnnotation(annotation);
+                if (AnnotationHistory.canRecreate(this.assessment, annotation)) {
+                    edits.add(new AnnotationHistory.Removed(annotation));
+                }
+            }
         }
+        this.history.record(isReview ? "Suppress Annotations" : "Delete Annotations", edits);
         this.notifyListeners();
     }
 
-    public void restoreAnnotation(Annotation annotation) {
-        if (this.isReview()) {
-            this.assessment.unsuppressAnnotation(annotation);
-        } else {
+    /**
+     * Restores the suppressed annotations. This is only possible in review mode.
+     * <p>
+     * The listeners are notified once after all annotations have been restored.
+     *
+     * @param annotations the annotations to restore
+     */
+    public void restoreAnnotations(Collection<Annotation> annotations) {
+        if (annotations.isEmpty()) {
+            return;
+        }
+
+        if (!this.isReview()) {
             ArtemisUtils.displayGenericWarningBalloon(
                     "Cannot restore annotation", "You can only restore annotations in review mode.");
             LOG.warn("Cannot restore annotation outside of review");
+            return;
+        }
+
+        List<AnnotationHistory.Edit> edits = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            if (annotation.isSuppressed()) {
+                this.assessment.unsuppressAnnotation(annotation);
+                edits.add(new AnnotationHistory.SuppressionChanged(annotation, false));
+            }
         }
+        this.history.record("Restore Annotations", edits);
         this.notifyListeners();
     }
 
+    /**
+     * Moves the annotations to new locations. An annotation can not be moved, so each one is replaced
+     * by a copy at the new location. This is not possible in review mode.
+     * <p>
+     * Only the annotations that {@link AnnotationHistory#canRecreate(Assessment, Annotation) can be recreated}
+     * are moved, a copy of any other annotation would lose its identity. These stay where they are and
+     * are marked to be checked instead.
+     * <p>
+     * The replacement is recorded as a single change, and the listeners are notified once.
+     *
+     * @param newLocations the new location of each annotation that should be moved
+     * @param toCheck the annotations that should be marked to be checked by the tutor, after they have been moved
+     * @return the number of annotations that have been moved
+     */
+    public int moveAnnotations(Map<Annotation, Location> newLocations, Collection<Annotation> toCheck) {
+        if (this.isReview()) {
+            ArtemisUtils.displayInvalidReviewOperationBalloon();
+            return 0;
+        }
+
+        Set<Annotation> marked = Collections.newSetFromMap(new IdentityHashMap<>());
+        marked.addAll(toCheck);
+
+        List<AnnotationHistory.Edit> edits = new ArrayList<>();
+        int movedCount = 0;
+        for (var entry : newLocations.entrySet()) {
+            Annotation annotation = entry.getKey();
+            if (!AnnotationHistory.canRecreate(this.assessment, annotation)) {
+                marked.add(annotation);
+                continue;
+            }
+
+            this.assessment.removeAnnotation(annotation);
+            edits.add(new AnnotationHistory.Removed(annotation));
+
+            Annotation moved = this.copyAnnotation(annotation, entry.getValue());
+            edits.add(new AnnotationHistory.Added(moved));
+            movedCount++;
+            if (marked.remove(annotation)) {
+                marked.add(moved);
+            }
+        }
+
+        this.annotationsToCheck.addAll(marked);
+        this.history.record("Move Annotations", edits);
+        this.notifyListeners();
+
+        return movedCount;
+    }
+
+    /**
+     * Adds copies of annotations of another assessment of the same participation, e.g. of an earlier submission.
+     * This is not possible in review mode.
+     *
+     * @param annotations the annotations to copy
+     * @param newLocations the location of the copy for the annotations that are not at the same location anymore
+     * @param toCheck the annotations whose copies should be marked to be checked by the tutor
+     */
+    public void copyAnnotations(
+            Collection<Annotation> annotations,
+            Map<Annotation, Location> newLocations,
+            Collection<Annotation> toCheck) {
+        if (this.isReview()) {
+            ArtemisUtils.displayInvalidReviewOperationBalloon();
+            return;
+        }
+
+        Set<Annotation> marked = Collections.newSetFromMap(new IdentityHashMap<>());
+        marked.addAll(toCheck);
+
+        List<AnnotationHistory.Edit> edits = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            Annotation copy = this.copyAnnotation(
+                    annotation, newLocations.getOrDefault(annotation, annotation.getLocation()));
+            edits.add(new AnnotationHistory.Added(copy));
+            if (marked.contains(annotation)) {
+                this.annotationsToCheck.add(copy);
+            }
+        }
+
+        this.history.record("Copy Annotations", edits);
+        this.notifyListeners();
+    }
+
+    private Annotation copyAnnotation(Annotation annotation, Location location) {
+        var mistakeType = annotation.getMistakeType();
+        var message = annotation.getCustomMessage().orElse(null);
+        if (mistakeType.isCustomAnnotation()) {
+            return this.assessment.addCustomAnnotation(
+                    mistakeType, location, message, annotation.getCustomScore().orElse(0.0));
+        }
+
+        return this.assessment.addPredefinedAnnotation(mistakeType, location, message);
+    }
+
+    /**
+     * Returns whether the tutor has to check the annotation, e.g. because the student changed its lines.
+     * This must be called on the EDT.
+     *
+     * @param annotation the annotation
+     * @return true if the annotation is marked to be checked
+     */
+    public boolean needsCheck(Annotation annotation) {
+        return this.annotationsToCheck.contains(annotation);
+    }
+
+    public boolean hasAnnotationsToCheck() {
+        if (this.annotationsToCheck.isEmpty()) {
+            return false;
+        }
+
+        // the marks of deleted annotations are kept, so only the ones of existing annotations count
+        Set<Annotation> currentAnnotations = Collections.newSetFromMap(new IdentityHashMap<>());
+        currentAnnotations.addAll(this.assessment.getAnnotations(true));
+        for (Annotation annotation : this.annotationsToCheck) {
+            if (currentAnnotations.contains(this.history.resolve(annotation))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the mark of annotations that the tutor has checked. This must be called on the EDT.
+     *
+     * @param annotations the checked annotations
+     */
+    public void markAsChecked(Collection<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            this.annotationsToCheck.remove(annotation);
+        }
+    }
+
     public void runAutograder() {
         if (this.isReview()) {
             return;
@@ -173,46 +489,266 @@ public class ActiveAssessment {
                     annotation.getCustomMessage().orElseThrow(),
                     annotation.getCustomScore().orElseThrow(),
                     messageWithPoints -> {
+                        var oldMessage = annotation.getCustomMessage().orElse(null);
+                        var oldScore = annotation.getCustomScore().orElse(null);
                         annotation.setCustomMessage(messageWithPoints.message());
                         annotation.setCustomScore(messageWithPoints.points());
+                        this.history.record(new AnnotationHistory.MessageChanged(
+                                annotation,
+                                oldMessage,
+                                oldScore,
+                                messageWithPoints.message(),
+                                messageWithPoints.points()));
                         this.notifyListeners();
                     });
         } else {
-            showCustomMessageDialog(annotation.getCustomMessage().orElse(""), customMessage -> {
-                if (customMessage.isBlank()) {
-                    annotation.setCustomMessage(null);
-                } else {
-                    annotation.setCustomMessage(customMessage);
-                }
-                this.notifyListeners();
-            });
+            showCustomMessageDialog(
+                    annotation.getMistakeType(),
+                    annotation.getCustomMessage().orElse(""),
+                    customMessage -> {
+                        var oldMessage = annotation.getCustomMessage().orElse(null);
+                        var newMessage = customMessage.isBlank() ? null : customMessage;
+                        annotation.setCustomMessage(newMessage);
+                        this.history.record(
+                                new AnnotationHistory.MessageChanged(annotation, oldMessage, null, newMessage, null));
+                        this.notifyListeners();
+                    });
+        }
+    }
+
+    public AnnotationHistory getHistory() {
+        return this.history;
+    }
+
+    /**
+     * Reverts the most recent annotation change of the user.
+     * <p>
+     * The listeners are notified like for any other change.
+     */
+    public void undo() {
+        if (this.history.undo()) {
+            this.notifyListeners();
+        }
+    }
+
+    /**
+     * Reapplies the most recently reverted annotation change.
+     */
+    public void redo() {
+        if (this.history.redo()) {
+            this.notifyListeners();
         }
     }
 
     private void addPredefinedAnnotationWithCustomMessage(MistakeType mistakeType, Location location) {
-        showCustomMessageDialog("", customMessage -> {
-            this.assessment.addPredefinedAnnotation(mistakeType, location, customMessage);
+        showCustomMessageDialog(mistakeType, "", customMessage -> {
+            var annotation = this.assessment.addPredefinedAnnotation(mistakeType, location, customMessage);
+            this.history.record(new AnnotationHistory.Added(annotation));
+            this.recordMistakeTypeUse(mistakeType);
             this.notifyListeners();
         });
     }
 
     private void addCustomAnnotation(MistakeType mistakeType, Location location) {
         showCustomAnnotationDialog(mistakeType, "", 0.0, messageWithPoints -> {
-            this.assessment.addCustomAnnotation(
+            var annotation = this.assessment.addCustomAnnotation(
                     mistakeType, location, messageWithPoints.message(), messageWithPoints.points());
+            this.history.record(new AnnotationHistory.Added(annotation));
+            this.recordMistakeTypeUse(mistakeType);
             this.notifyListeners();
         });
     }
 
+    /**
+     * Records that an annotation of the mistake type was added, so that the popup ranks it higher.
+     * This is only called once the annotation exists, a cancelled dialog does not count.
+     */
+    private void recordMistakeTypeUse(MistakeType mistakeType) {
+        MistakeTypeUsage.getInstance()
+                .recordUse(this.assessment.getSubmission().getExercise().getId(), mistakeType);
+    }
+
+    /**
+     * Schedules the listeners to be notified about the changes of the annotations.
+     * <p>
+     * This can be called from any thread. All changes until the EDT processes the notification are
+     * delivered together in one change set.
+     */
     private void notifyListeners() {
-        for (Consumer<List<Annotation>> listener : this.annotationsUpdatedListener) {
-            listener.accept(this.assessment.getAnnotations(true));
+        // e.g. the autograder might finish after the assessment has been closed
+        if (this.isDisposed) {
+            return;
+        }
+
+        if (this.isFlushScheduled.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().invokeLater(this::flushChanges, ModalityState.any());
+        }
+    }
+
+    private void flushChanges() {
+        this.isFlushScheduled.set(false);
+        if (this.isDisposed) {
+            return;
         }
+
+        var update = this.updateAnnotations();
+        var changes = update.changes();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        for (Consumer<AnnotationChangeSet> listener : this.annotationChangeListener) {
+            listener.accept(changes);
+        }
+
+        if (!update.changedFiles().isEmpty()) {
+            for (Consumer<Set<String>> listener : this.annotationCountsChangedListener) {
+                listener.accept(update.changedFiles());
+            }
+        }
+
+        if (!update.scoreChanges().isEmpty()) {
+            for (Consumer<ScoreModel.Changes> listener : this.scoreChangedListener) {
+                listener.accept(update.scoreChanges());
+            }
+        }
+    }
+
+    private record AnnotationsUpdate(
+            AnnotationChangeSet changes, Set<String> changedFiles, ScoreModel.Changes scoreChanges) {}
+
+    /**
+     * Compares the current annotations of the assessment with the ones of the last change set,
+     * and updates the indices accordingly.
+     *
+     * @return the changes since the last call and what changed in the indices
+     */
+    private AnnotationsUpdate updateAnnotations() {
+        List<Annotation> currentAnnotations = this.assessment.getAnnotations(true);
+        Map<Annotation, AnnotationState> newStates = new IdentityHashMap<>();
+        for (Annotation annotation : currentAnnotations) {
+            newStates.put(annotation, AnnotationState.of(annotation));
+        }
+
+        List<Annotation> added = new ArrayList<>();
+        List<Annotation> modified = new ArrayList<>();
+        for (Annotation annotation : currentAnnotations) {
+            var oldState = this.annotationStates.get(annotation);
+            if (oldState == null) {
+                added.add(annotation);
+            } else if (!oldState.equals(newStates.get(annotation))) {
+                modified.add(annotation);
+            }
+        }
+
+        List<Annotation> removed = new ArrayList<>();
+        for (Annotation annotation : this.annotations) {
+            if (!newStates.containsKey(annotation)) {
+                removed.add(annotation);
+            }
+        }
+
+        var changes = new AnnotationChangeSet(currentAnnotations, added, removed, modified);
+        this.moveMarksToReplacements();
+        // the indices compare the old and the new suppression state, so they are updated before the states
+        var update = this.updateAnnotationIndices(changes);
+
+        this.annotations = changes.annotations();
+        this.annotationStates = newStates;
+        if (this.isReview()) {
+            this.reviewDiff = ReviewDiff.compute(currentAnnotations);
+        }
+
+        return update;
+    }
+
+    /**
+     * Moves the marks of annotations that have been deleted and created again by an undo or redo
+     * to the new annotations.
+     */
+    private void moveMarksToReplacements() {
+        List<Annotation> replaced = new ArrayList<>();
+        for (Annotation annotation : this.annotationsToCheck) {
+            if (this.history.resolve(annotation) != annotation) {
+                replaced.add(annotation);
+            }
+        }
+
+        for (Annotation annotation : replaced) {
+            this.annotationsToCheck.remove(annotation);
+            this.annotationsToCheck.add(this.history.resolve(annotation));
+        }
+    }
+
+    /**
+     * Updates the per-file counts, the navigation index and the score model,
+     * which only contain the non-suppressed annotations.
+     *
+     * @param changes the changes since the last update
+     * @return the changes, the files whose number of annotations changed and what changed in the score model
+     */
+    private AnnotationsUpdate updateAnnotationIndices(AnnotationChangeSet changes) {
+        List<Annotation> added = new ArrayList<>();
+        List<Annotation> removed = new ArrayList<>();
+
+        for (Annotation annotation : changes.added()) {
+            if (!annotation.isSuppressed()) {
+                added.add(annotation);
+            }
+        }
+
+        for (Annotation annotation : changes.removed()) {
+            if (!this.annotationStates.get(annotation).isSuppressed()) {
+                removed.add(annotation);
+            }
+        }
+
+        for (Annotation annotation : changes.modified()) {
+            boolean wasSuppressed = this.annotationStates.get(annotation).isSuppressed();
+            if (wasSuppressed && !annotation.isSuppressed()) {
+                added.add(annotation);
+            } else if (!wasSuppressed && annotation.isSuppressed()) {
+                removed.add(annotation);
+            }
+        }
+
+        this.navigationIndex.update(added, removed);
+        return new AnnotationsUpdate(
+                changes,
+                this.fileAnnotationCounter.update(added, removed),
+                this.scoreModel.update(added, removed, changes.modified()));
+    }
+
+    @Override
+    public void dispose() {
+        this.isDisposed = true;
+        this.annotations = List.of();
+        this.annotationStates = new IdentityHashMap<>();
+        this.annotationsToCheck.clear();
+        this.history.clear();
+    }
+
+    private List<String> suggestMessages(MistakeType mistakeType, String prefix) {
+        // the library is still loading, there is nothing to suggest yet
+        var library = this.messageLibrary.getNow(null);
+        if (library == null) {
+            return List.of();
+        }
+
+        return library.suggest(mistakeType, prefix);
+    }
+
+    private void recordMessage(MistakeType mistakeType, String message) {
+        this.messageLibrary.thenAccept(library -> library.recordUse(mistakeType, message));
     }
 
-    public static void showCustomMessageDialog(String initialMessage, Consumer<String> onOk) {
+    private void showCustomMessageDialog(MistakeType mistakeType, String initialMessage, Consumer<String> onOk) {
         CustomMessageDialogBuilder.create(initialMessage)
-                .onSubmit(messageWithPoints -> onOk.accept(messageWithPoints.message()))
+                .withSuggestions(prefix -> this.suggestMessages(mistakeType, prefix))
+                .onSubmit(messageWithPoints -> {
+                    this.recordMessage(mistakeType, messageWithPoints.message());
+                    onOk.accept(messageWithPoints.message());
+                })
                 .showNotModal();
     }
 
@@ -222,7 +758,11 @@ public class ActiveAssessment {
             double initialPoints,
             Consumer<CustomMessageDialogBuilder.MessageWithPoints> onOk) {
         CustomMessageDialogBuilder.create(initialMessage)
-                .onSubmit(onOk)
+                .withSuggestions(prefix -> this.suggestMessages(mistakeType, prefix))
+                .onSubmit(messageWithPoints -> {
+                    this.recordMessage(mistakeType, messageWithPoints.message());
+                    onOk.accept(messageWithPoints);
+                })
                 .allowCustomScore(mistakeType, initialPoints)
                 .showNotModal();
     }
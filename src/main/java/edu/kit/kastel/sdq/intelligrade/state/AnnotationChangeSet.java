@@ -0,0 +1,55 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+
+/**
+ * The changes of the annotations of an assessment in one update.
+ * <p>
+ * Annotations are compared by identity. An annotation is modified if its custom message, custom score
+ * or suppression changed.
+ *
+ * @param annotations all annotations after the update (including suppressed ones)
+ * @param added the annotations that were added
+ * @param removed the annotations that were removed
+ * @param modified the annotations that still exist, but were modified
+ */
+public record AnnotationChangeSet(
+        List<Annotation> annotations, List<Annotation> added, List<Annotation> removed, List<Annotation> modified) {
+    public AnnotationChangeSet {
+        annotations = List.copyOf(annotations);
+        added = List.copyOf(added);
+        removed = List.copyOf(removed);
+        modified = List.copyOf(modified);
+    }
+
+    /**
+     * Creates the change set for a listener that did not know any annotations before.
+     *
+     * @param annotations all annotations
+     * @return a change set in which all annotations were added
+     */
+    public static AnnotationChangeSet initial(List<Annotation> annotations) {
+        return new AnnotationChangeSet(annotations, annotations, List.of(), List.of());
+    }
+
+    public boolean isEmpty() {
+        return this.added.isEmpty() && this.removed.isEmpty() && this.modified.isEmpty();
+    }
+
+    /**
+     * Returns all annotations that were added, removed or modified.
+     *
+     * @return the changed annotations
+     */
+    public List<Annotation> changedAnnotations() {
+        List<Annotation> result = new ArrayList<>(this.added.size() + this.removed.size() + this.modified.size());
+        result.addAll(this.added);
+        result.addAll(this.removed);
+        result.addAll(this.modified);
+        return result;
+    }
+}
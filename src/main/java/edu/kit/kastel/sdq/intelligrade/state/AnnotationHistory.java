@@ -0,0 +1,282 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import edu.kit.kastel.sdq.artemis4j.client.AnnotationSource;
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+import edu.kit.kastel.sdq.artemis4j.grading.Assessment;
+
+/**
+ * The undo/redo history of the annotation changes made by the user.
+ * <p>
+ * Every entry only stores how to revert and reapply a single change (e.g. the annotation that was deleted),
+ * not a copy of the annotations, so the memory needed is proportional to the changes.
+ * <p>
+ * artemis4j cannot add an existing annotation back to an assessment. Undoing a deletion therefore creates
+ * a new annotation with the same mistake type, location, custom message, custom score and suppression.
+ * Entries that refer to the deleted annotation are redirected to the new one.
+ * <p>
+ * The new annotation gets a new UUID, and its source is the manual source of the current correction round.
+ * Only the annotations that the tutor made in the current round are recreated like this, see
+ * {@link #canRecreate(Assessment, Annotation)}. Deleting anything else, e.g. an annotation of the autograder,
+ * is not recorded, because undoing it would change what is submitted.
+ */
+public class AnnotationHistory {
+    // Older entries are dropped, the history is only meant for correcting recent mistakes
+    private static final int MAX_ENTRIES = 200;
+
+    private final Assessment assessment;
+    private final Deque<Edit> undoStack = new ArrayDeque<>();
+    private final Deque<Edit> redoStack = new ArrayDeque<>();
+    // annotations that were removed and created again by an undo or redo, mapped to their replacement
+    private final Map<Annotation, Annotation> replacements = new IdentityHashMap<>();
+
+    AnnotationHistory(Assessment assessment) {
+        this.assessment = assessment;
+    }
+
+    /**
+     * A change that can be reverted and reapplied.
+     */
+    sealed interface Edit {
+        String description();
+
+        void undo(AnnotationHistory history);
+
+        void redo(AnnotationHistory history);
+    }
+
+    record Added(Annotation annotation) implements Edit {
+        @Override
+        public String description() {
+            return "Add Annotation";
+        }
+
+        @Override
+        public void undo(AnnotationHistory history) {
+            history.assessment.removeAnnotation(history.resolve(annotation));
+        }
+
+        @Override
+        public void redo(AnnotationHistory history) {
+            history.recreate(history.resolve(annotation));
+        }
+    }
+
+    record Removed(Annotation annotation) implements Edit {
+        @Override
+        public String description() {
+            return "Delete Annotation";
+        }
+
+        @Override
+        public void undo(AnnotationHistory history) {
+            history.recreate(history.resolve(annotation));
+        }
+
+        @Override
+        public void redo(AnnotationHistory history) {
+            history.assessment.removeAnnotation(history.resolve(annotation));
+        }
+    }
+
+    record SuppressionChanged(Annotation annotation, boolean isSuppressed) implements Edit {
+        @Override
+        public String description() {
+            return isSuppressed ? "Suppress Annotation" : "Restore Annotation";
+        }
+
+        @Override
+        public void undo(AnnotationHistory history) {
+            history.setSuppressed(history.resolve(annotation), !isSuppressed);
+        }
+
+        @Override
+        public void redo(AnnotationHistory history) {
+            history.setSuppressed(history.resolve(annotation), isSuppressed);
+        }
+    }
+
+    record MessageChanged(
+            Annotation annotation, String oldMessage, Double oldScore, String newMessage, Double newScore)
+            implements Edit {
+        @Override
+        public String description() {
+            return "Edit Custom Message";
+        }
+
+        @Override
+        public void undo(AnnotationHistory history) {
+            var current = history.resolve(annotation);
+            current.setCustomMessage(oldMessage);
+            if (oldScore != null) {
+                current.setCustomScore(oldScore);
+            }
+        }
+
+        @Override
+        public void redo(AnnotationHistory history) {
+            var current = history.resolve(annotation);
+            current.setCustomMessage(newMessage);
+            if (newScore != null) {
+                current.setCustomScore(newScore);
+            }
+        }
+    }
+
+    /**
+     * Multiple edits that are undone and redone together, e.g. deleting all selected annotations.
+     */
+    record Compound(String description, List<Edit> edits) implements Edit {
+        Compound {
+            edits = List.copyOf(edits);
+        }
+
+        @Override
+        public void undo(AnnotationHistory history) {
+            for (Edit edit : edits.reversed()) {
+                edit.undo(history);
+            }
+        }
+
+        @Override
+        public void redo(AnnotationHistory history) {
+            for (Edit edit : edits) {
+                edit.redo(history);
+            }
+        }
+    }
+
+    void record(Edit edit) {
+        this.undoStack.push(edit);
+        if (this.undoStack.size() > MAX_ENTRIES) {
+            this.undoStack.removeLast();
+        }
+
+        this.redoStack.clear();
+    }
+
+    void record(String description, List<Edit> edits) {
+        if (edits.size() == 1) {
+            this.record(edits.getFirst());
+        } else if (!edits.isEmpty()) {
+            this.record(new Compound(description, edits));
+        }
+    }
+
+    public Optional<String> getUndoDescription() {
+        return Optional.ofNullable(this.undoStack.peek()).map(Edit::description);
+    }
+
+    public Optional<String> getRedoDescription() {
+        return Optional.ofNullable(this.redoStack.peek()).map(Edit::description);
+    }
+
+    /**
+     * Reverts the most recent change.
+     *
+     * @return true if there was a change to revert
+     */
+    boolean undo() {
+        var edit = this.undoStack.poll();
+        if (edit == null) {
+            return false;
+        }
+
+        edit.undo(this);
+        this.redoStack.push(edit);
+        return true;
+    }
+
+    /**
+     * Reapplies the most recently reverted change.
+     *
+     * @return true if there was a change to reapply
+     */
+    boolean redo() {
+        var edit = this.redoStack.poll();
+        if (edit == null) {
+            return false;
+        }
+
+        edit.redo(this);
+        this.undoStack.push(edit);
+        return true;
+    }
+
+    void clear() {
+        this.undoStack.clear();
+        this.redoStack.clear();
+        this.replacements.clear();
+    }
+
+    /**
+     * Checks whether a deletion of the annotation can be undone without changing the annotation.
+     * This is only the case for the annotations that the tutor made in the current correction round,
+     * because a recreated annotation always has the manual source of the current round and no classifiers
+     * other than the ones of its mistake type.
+     *
+     * @param assessment the assessment of the annotation
+     * @param annotation the annotation
+     * @return true if the annotation can be deleted and recreated
+     */
+    static boolean canRecreate(Assessment assessment, Annotation annotation) {
+        var ownSource =
+                switch (assessment.getCorrectionRound()) {
+                    case FIRST -> AnnotationSource.MANUAL_FIRST_ROUND;
+                    case SECOND -> AnnotationSource.MANUAL_SECOND_ROUND;
+                    default -> null;
+                };
+
+        return ownSource != null && annotation.getSource() == ownSource;
+    }
+
+    /**
+     * Returns the annotation that currently stands for the annotation, i.e. the annotation itself, or the one
+     * that was created when an undo or redo brought it back.
+     */
+    Annotation resolve(Annotation annotation) {
+        Annotation current = annotation;
+        while (this.replacements.containsKey(current)) {
+            current = this.replacements.get(current);
+        }
+
+        return current;
+    }
+
+    private void recreate(Annotation annotation) {
+        var mistakeType = annotation.getMistakeType();
+        var message = annotation.getCustomMessage().orElse(null);
+
+        Annotation recreated;
+        if (mistakeType.isCustomAnnotation()) {
+            recreated = this.assessment.addCustomAnnotation(
+                    mistakeType,
+                    annotation.getLocation(),
+                    message,
+                    annotation.getCustomScore().orElse(0.0));
+        } else {
+            recreated = this.assessment.addPredefinedAnnotation(mistakeType, annotation.getLocation(), message);
+        }
+
+        if (annotation.isSuppressed()) {
+            this.assessment.suppressAnnotation(recreated);
+        }
+
+        this.replacements.put(annotation, recreated);
+    }
+
+    private void setSuppressed(Annotation annotation, boolean isSuppressed) {
+        if (isSuppressed) {
+            this.assessment.suppressAnnotation(annotation);
+        } else {
+            this.assessment.unsuppressAnnotation(annotation);
+        }
+    }
+}
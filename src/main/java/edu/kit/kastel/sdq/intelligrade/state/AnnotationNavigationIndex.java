@@ -0,0 +1,127 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Keeps the (non-suppressed) annotations of an assessment ordered by their position in the submission,
+ * so that one can jump from one annotation to the next one, even across files.
+ * <p>
+ * The index is updated with the annotations that were added or removed, every lookup is O(log n).
+ */
+public class AnnotationNavigationIndex {
+    // UUIDs only consist of hex digits and dashes, so these sort before/after every UUID
+    private static final String LOWEST_UUID = "";
+    private static final String HIGHEST_UUID = "\uFFFF";
+
+    private final TreeMap<Position, Annotation> orderedAnnotations = new TreeMap<>();
+    private final Map<Annotation, Position> positions = new IdentityHashMap<>();
+
+    /**
+     * The position of an annotation. The UUID makes the position unique, even if multiple annotations
+     * start at the same location.
+     */
+    record Position(String filePath, int line, int column, String uuid) implements Comparable<Position> {
+        private static final Comparator<Position> COMPARATOR = Comparator.comparing(Position::filePath)
+                .thenComparingInt(Position::line)
+                .thenComparingInt(Position::column)
+                .thenComparing(Position::uuid);
+
+        static Position of(Annotation annotation) {
+            var start = annotation.getLocation().start();
+            return new Position(
+                    FileAnnotationCounter.normalizePath(annotation.getFilePath()),
+                    start.line(),
+                    start.column().orElse(0),
+                    annotation.getUUID());
+        }
+
+        @Override
+        public int compareTo(@NonNull Position other) {
+            return COMPARATOR.compare(this, other);
+        }
+    }
+
+    synchronized void update(Collection<Annotation> added, Collection<Annotation> removed) {
+        for (Annotation annotation : removed) {
+            var position = positions.remove(annotation);
+            if (position != null) {
+                orderedAnnotations.remove(position);
+            }
+        }
+
+        for (Annotation annotation : added) {
+            var position = Position.of(annotation);
+            positions.put(annotation, position);
+            orderedAnnotations.put(position, annotation);
+        }
+    }
+
+    /**
+     * Finds the first annotation that starts after the given position. If there is none, it wraps around
+     * to the first annotation.
+     *
+     * @param filePath the file path relative to the assignment directory, or null to start at the beginning
+     * @param line the 0-based line
+     * @param column the 0-based column
+     * @return the next annotation, empty if there are no annotations
+     */
+    public synchronized Optional<Annotation> findNext(String filePath, int line, int column) {
+        var entry = filePath == null
+                ? null
+                : orderedAnnotations.higherEntry(
+                        new Position(FileAnnotationCounter.normalizePath(filePath), line, column, HIGHEST_UUID));
+        if (entry == null) {
+            entry = orderedAnnotations.firstEntry();
+        }
+
+        return Optional.ofNullable(entry).map(Map.Entry::getValue);
+    }
+
+    /**
+     * Finds the last annotation that starts before the given position. If there is none, it wraps around
+     * to the last annotation.
+     *
+     * @param filePath the file path relative to the assignment directory, or null to start at the end
+     * @param line the 0-based line
+     * @param column the 0-based column
+     * @return the previous annotation, empty if there are no annotations
+     */
+    public synchronized Optional<Annotation> findPrevious(String filePath, int line, int column) {
+        var entry = filePath == null
+                ? null
+                : orderedAnnotations.lowerEntry(
+                        new Position(FileAnnotationCounter.normalizePath(filePath), line, column, LOWEST_UUID));
+        if (entry == null) {
+            entry = orderedAnnotations.lastEntry();
+        }
+
+        return Optional.ofNullable(entry).map(Map.Entry::getValue);
+    }
+
+    /**
+     * Lists the annotations that start in the given file, ordered by their position.
+     *
+     * @param filePath the file path relative to the assignment directory
+     * @return the annotations in the file
+     */
+    public synchronized List<Annotation> listAnnotationsInFile(String filePath) {
+        String path = FileAnnotationCounter.normalizePath(filePath);
+        var annotationsInFile = orderedAnnotations.subMap(
+                new Position(path, Integer.MIN_VALUE, Integer.MIN_VALUE, LOWEST_UUID),
+                true,
+                new Position(path, Integer.MAX_VALUE, Integer.MAX_VALUE, HIGHEST_UUID),
+                true);
+
+        return List.copyOf(annotationsInFile.values());
+    }
+}
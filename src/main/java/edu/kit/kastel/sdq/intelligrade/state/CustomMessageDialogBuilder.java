@@ -1,21 +1,33 @@
-/* Licensed under EPL-2.0 2025. */
+/* Licensed under EPL-2.0 2025-2026. */
 package edu.kit.kastel.sdq.intelligrade.state;
 
 import java.awt.EventQueue;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.swing.JButton;
 import javax.swing.JSpinner;
+import javax.swing.ListSelectionModel;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.event.DocumentEvent;
 import javax.swing.text.BadLocationException;
 
 import com.intellij.openapi.ui.popup.ComponentPopupBuilder;
 import com.intellij.openapi.ui.popup.JBPopup;
 import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.CollectionListModel;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.SimpleListCellRenderer;
+import com.intellij.ui.components.JBList;
 import com.intellij.ui.components.JBPanel;
+import com.intellij.ui.components.JBScrollPane;
 import edu.kit.kastel.sdq.artemis4j.grading.penalty.MistakeType;
 import edu.kit.kastel.sdq.intelligrade.extensions.CustomCommentField;
 import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
@@ -91,6 +103,71 @@ public class CustomMessageDialogBuilder {
         return this;
     }
 
+    /**
+     * Shows messages below the text field that start with the already typed text.
+     * Clicking a suggestion or pressing tab (for the first suggestion) replaces the text with it.
+     *
+     * @param suggestions returns the suggested messages for the typed text, this is called on every keystroke
+     * @return this builder
+     */
+    public CustomMessageDialogBuilder withSuggestions(Function<String, List<String>> suggestions) {
+        var model = new CollectionListModel<String>();
+        var list = new JBList<>(model);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(SimpleListCellRenderer.create(
+                "", message -> StringUtil.shortenTextWithEllipsis(message.replace('\n', ' '), 100, 0)));
+        var scrollPane = new JBScrollPane(list);
+
+        Runnable updateSuggestions = () -> {
+            String text = this.field.commentField().getText();
+            List<String> messages = suggestions.apply(text).stream()
+                    .filter(message -> !message.equals(text.strip()))
+                    .toList();
+            model.replaceAll(messages);
+            scrollPane.setVisible(!messages.isEmpty());
+            this.mainPanel.revalidate();
+        };
+
+        this.field.commentField().getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(DocumentEvent event) {
+                updateSuggestions.run();
+            }
+        });
+
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent event) {
+                String message = list.getSelectedValue();
+                if (message != null) {
+                    applySuggestion(message);
+                }
+            }
+        });
+
+        this.field.commentField().addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent event) {
+                if (event.getKeyCode() == KeyEvent.VK_TAB && !model.isEmpty()) {
+                    event.consume();
+                    applySuggestion(model.getElementAt(0));
+                }
+            }
+        });
+
+        this.mainPanel.add(scrollPane, "spanx 2, growx, hmax 120lp");
+        updateSuggestions.run();
+
+        return this;
+    }
+
+    private void applySuggestion(String message) {
+        var commentField = this.field.commentField();
+        commentField.setText(message);
+        commentField.setCaretPosition(message.length());
+        commentField.requestFocusInWindow();
+    }
+
     public CustomMessageDialogBuilder allowCustomScore(MistakeType mistakeType, double initialPoints) {
         double maxValue = mistakeType.getRatingGroup().getMaxPenalty();
         double minValue = mistakeType.getRatingGroup().getMinPenalty();
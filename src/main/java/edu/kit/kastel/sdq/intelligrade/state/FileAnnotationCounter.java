@@ -0,0 +1,59 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+
+/**
+ * Counts the (non-suppressed) annotations per file of an assessment.
+ * <p>
+ * The counts are updated with the annotations that were added or removed,
+ * so looking up the count of a file never has to go through all annotations.
+ */
+public class FileAnnotationCounter {
+    private final Map<String, Integer> countsPerFile = new HashMap<>();
+
+    static String normalizePath(String path) {
+        return path.replace("\\", "/");
+    }
+
+    /**
+     * Returns the number of annotations in the given file.
+     *
+     * @param filePath the path of the file, relative to the assignment directory
+     * @return the number of annotations, 0 if there are none
+     */
+    public synchronized int getCount(String filePath) {
+        return countsPerFile.getOrDefault(normalizePath(filePath), 0);
+    }
+
+    /**
+     * Applies the given changes to the counts.
+     *
+     * @param added the annotations that should be counted from now on
+     * @param removed the annotations that should no longer be counted
+     * @return the paths of all files whose count changed
+     */
+    synchronized Set<String> update(Collection<Annotation> added, Collection<Annotation> removed) {
+        Set<String> changedFiles = new HashSet<>();
+        for (Annotation annotation : added) {
+            String path = normalizePath(annotation.getFilePath());
+            countsPerFile.merge(path, 1, Integer::sum);
+            changedFiles.add(path);
+        }
+
+        for (Annotation annotation : removed) {
+            String path = normalizePath(annotation.getFilePath());
+            // returning null from the remapping function removes the entry
+            countsPerFile.computeIfPresent(path, (key, count) -> count <= 1 ? null : count - 1);
+            changedFiles.add(path);
+        }
+
+        return changedFiles;
+    }
+}
@@ -0,0 +1,109 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Maps the lines of an old version of a file to the lines of a new version, based on the edits between them.
+ * <p>
+ * Lines outside of the edits are unchanged and only shifted by the lines inserted or removed above them.
+ * Lines inside of an edit have been modified or deleted and have no counterpart in the new version.
+ */
+public final class LineMapping {
+    /**
+     * The result of {@link #mapSortedLines(int[])} for lines that have been modified or deleted.
+     */
+    public static final int DELETED = -1;
+
+    public static final LineMapping IDENTITY = new LineMapping(List.of());
+
+    private final List<Edit> edits;
+
+    /**
+     * A region of the file that has been replaced, all ranges are zero-based and the ends are exclusive.
+     * An insertion has an empty old range, a deletion an empty new range.
+     *
+     * @param oldStart the first replaced line in the old version
+     * @param oldEnd the end of the replaced lines in the old version
+     * @param newStart the first replacing line in the new version
+     * @param newEnd the end of the replacing lines in the new version
+     */
+    public record Edit(int oldStart, int oldEnd, int newStart, int newEnd) {}
+
+    /**
+     * Creates the mapping for the given edits, they must not overlap.
+     *
+     * @param edits the edits between the old and the new version
+     */
+    public LineMapping(List<Edit> edits) {
+        this.edits = edits.stream().sorted(Comparator.comparingInt(Edit::oldStart)).toList();
+    }
+
+    /**
+     * Maps the lines of the old version to the lines of the new version.
+     * <p>
+     * The lines are mapped in a single pass over the lines and the edits, therefore they must be sorted.
+     *
+     * @param sortedLines zero-based lines of the old version, in ascending order
+     * @return the corresponding lines of the new version, or {@link #DELETED} for lines that have been changed
+     */
+    public int[] mapSortedLines(int[] sortedLines) {
+        int[] result = new int[sortedLines.length];
+
+        int editIndex = 0;
+        // the number of lines that the edits above the current line added (or removed if negative)
+        int shift = 0;
+        for (int i = 0; i < sortedLines.length; i++) {
+            int line = sortedLines[i];
+            if (i > 0 && line < sortedLines[i - 1]) {
+                throw new IllegalArgumentException("The lines must be sorted");
+            }
+
+            // skip the edits above the line, an insertion directly before the line shifts it as well
+            while (editIndex < this.edits.size() && this.edits.get(editIndex).oldEnd() <= line) {
+                Edit edit = this.edits.get(editIndex);
+                shift += (edit.newEnd() - edit.newStart()) - (edit.oldEnd() - edit.oldStart());
+                editIndex++;
+            }
+
+            boolean isInEdit = editIndex < this.edits.size()
+                    && this.edits.get(editIndex).oldStart() <= line
+                    && line < this.edits.get(editIndex).oldEnd();
+            result[i] = isInEdit ? DELETED : line + shift;
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds where a line that has been modified or deleted ended up in the new version.
+     * <p>
+     * This is the first line of the edit that replaced the line. A deletion has no replacing lines,
+     * so the line above the deletion is returned, which also exists if the end of the file was deleted.
+     *
+     * @param line a zero-based line of the old version that is mapped to {@link #DELETED}
+     * @return the zero-based line of the new version
+     * @throws IllegalArgumentException if the line has not been modified or deleted
+     */
+    public int findReplacement(int line) {
+        // the edits are sorted and do not overlap, so the edit containing the line is found by a binary search
+        int low = 0;
+        int high = this.edits.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Edit edit = this.edits.get(middle);
+            if (edit.oldEnd() <= line) {
+                low = middle + 1;
+            } else if (line < edit.oldStart()) {
+                high = middle - 1;
+            } else if (edit.newStart() < edit.newEnd()) {
+                return edit.newStart();
+            } else {
+                return Math.max(edit.newStart() - 1, 0);
+            }
+        }
+
+        throw new IllegalArgumentException("Line %d has not been changed".formatted(line));
+    }
+}
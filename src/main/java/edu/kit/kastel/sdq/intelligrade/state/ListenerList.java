@@ -0,0 +1,81 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * A list of listeners whose entries can be bound to the lifetime of a {@link Disposable}.
+ * <p>
+ * A listener that is added with a parent disposable is removed, once the parent is disposed.
+ * Disposing the list removes all listeners and detaches it from the parents, so that neither the
+ * list nor the parents keep each other alive.
+ * <p>
+ * The list can be iterated while listeners are added or removed.
+ *
+ * @param <T> the type of the listeners
+ */
+public final class ListenerList<T> implements Disposable, Iterable<T> {
+    private final List<T> listeners = new CopyOnWriteArrayList<>();
+    private final List<Disposable> registrations = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a listener that lives as long as this list.
+     *
+     * @param listener the listener
+     */
+    public void add(T listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Adds a listener that is removed once the parent disposable is disposed.
+     * If the parent is already disposed, the listener is not added.
+     *
+     * @param listener the listener
+     * @param parentDisposable the disposable that determines the lifetime of the listener
+     * @return whether the listener has been added
+     */
+    public boolean add(T listener, Disposable parentDisposable) {
+        Disposable registration = new Disposable() {
+            @Override
+            public void dispose() {
+                listeners.remove(listener);
+                registrations.remove(this);
+            }
+        };
+
+        this.listeners.add(listener);
+        this.registrations.add(registration);
+        if (!Disposer.tryRegister(parentDisposable, registration)) {
+            registration.dispose();
+            return false;
+        }
+
+        return true;
+    }
+
+    public int size() {
+        return this.listeners.size();
+    }
+
+    @Override
+    public @NonNull Iterator<T> iterator() {
+        return this.listeners.iterator();
+    }
+
+    @Override
+    public void dispose() {
+        for (Disposable registration : this.registrations) {
+            Disposer.dispose(registration);
+        }
+
+        this.registrations.clear();
+        this.listeners.clear();
+    }
+}
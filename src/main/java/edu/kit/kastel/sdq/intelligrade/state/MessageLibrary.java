@@ -0,0 +1,163 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.MistakeType;
+
+/**
+ * The custom messages the tutor has used in an exercise, grouped by mistake type.
+ * <p>
+ * They are stored locally in the system directory of the IDE, one file per exercise, and are suggested
+ * when the tutor writes a new custom message.
+ */
+public final class MessageLibrary {
+    private static final Logger LOG = Logger.getInstance(MessageLibrary.class);
+
+    // All reads and writes of the files happen one after another on this executor
+    private static final ExecutorService IO_EXECUTOR =
+            AppExecutorUtil.createBoundedApplicationPoolExecutor("IntelliGrade Message Library", 1);
+
+    private final Path file;
+    private final Map<String, MessageTrie> messagesByMistakeType = new HashMap<>();
+
+    private MessageLibrary(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the library of the exercise in the background.
+     *
+     * @param exerciseId the id of the exercise
+     * @return the library, once it has been loaded
+     */
+    public static CompletableFuture<MessageLibrary> load(long exerciseId) {
+        var file = PathManager.getSystemDir()
+                .resolve("intelligrade")
+                .resolve("messages")
+                .resolve("exercise-%d.tsv".formatted(exerciseId));
+
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    var library = new MessageLibrary(file);
+                    library.read();
+                    return library;
+                },
+                IO_EXECUTOR);
+    }
+
+    /**
+     * Returns the best ranked messages of the mistake type that start with the prefix.
+     * The ranking prefers messages that have been used often and recently.
+     *
+     * @param mistakeType the mistake type
+     * @param prefix the text that has already been typed
+     * @return the suggested messages, best ranked first
+     */
+    public synchronized List<String> suggest(MistakeType mistakeType, String prefix) {
+        var trie = this.messagesByMistakeType.get(mistakeType.getId());
+        if (trie == null) {
+            return List.of();
+        }
+
+        return trie.suggest(prefix.strip(), MessageTrie.MAX_SUGGESTIONS);
+    }
+
+    /**
+     * Adds a use of the message to the library and saves it in the background.
+     *
+     * @param mistakeType the mistake type of the annotation
+     * @param message the custom message
+     */
+    public void recordUse(MistakeType mistakeType, String message) {
+        if (message == null || message.isBlank()) {
+            return;
+        }
+
+        synchronized (this) {
+            this.messagesByMistakeType
+                    .computeIfAbsent(mistakeType.getId(), id -> new MessageTrie())
+                    .recordUse(message.strip(), System.currentTimeMillis());
+        }
+
+        IO_EXECUTOR.execute(this::write);
+    }
+
+    private void read() {
+        if (!Files.isRegularFile(this.file)) {
+            return;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(this.file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.warn("Failed to read the message library " + this.file, e);
+            return;
+        }
+
+        synchronized (this) {
+            for (String line : lines) {
+                // mistake type, count, last used, rank, message
+                String[] parts = line.split("\t", 5);
+                if (parts.length != 5) {
+                    continue;
+                }
+
+                try {
+                    var entry = new MessageTrie.Entry(
+                            StringUtil.unescapeStringCharacters(parts[4]),
+                            Integer.parseInt(parts[1]),
+                            Long.parseLong(parts[2]),
+                            Double.parseDouble(parts[3]));
+                    this.messagesByMistakeType
+                            .computeIfAbsent(parts[0], id -> new MessageTrie())
+                            .add(entry);
+                } catch (NumberFormatException e) {
+                    LOG.debug("Skipping invalid line in the message library: " + line);
+                }
+            }
+        }
+    }
+
+    private void write() {
+        List<String> lines = new ArrayList<>();
+        synchronized (this) {
+            for (var mistakeType : this.messagesByMistakeType.entrySet()) {
+                for (var entry : mistakeType.getValue().entries()) {
+                    lines.add(String.join(
+                            "\t",
+                            mistakeType.getKey(),
+                            String.valueOf(entry.getCount()),
+                            String.valueOf(entry.getLastUsed()),
+                            String.valueOf(entry.getRank()),
+                            StringUtil.escapeStringCharacters(entry.getMessage())));
+                }
+            }
+        }
+
+        try {
+            Files.createDirectories(this.file.getParent());
+            // write to a temporary file first, so that a crash does not leave a partially written library
+            Path temporaryFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+            Files.move(temporaryFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Failed to write the message library " + this.file, e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A prefix index over custom messages that returns the best ranked messages starting with a prefix.
+ * <p>
+ * Every node of the trie keeps its best ranked messages, so a lookup only has to walk the prefix.
+ * This works, because the rank of a message only ever increases (see {@link Entry#recordUse(long)}),
+ * so a message can only enter the best ranked list of a node when it is used, which updates the lists
+ * along its path.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class MessageTrie {
+    static final int MAX_SUGGESTIONS = 10;
+    // Messages can be very long, but nobody types that much before picking a suggestion.
+    // The nodes at this depth keep all their messages, so longer prefixes can be answered by filtering them.
+    static final int MAX_DEPTH = 48;
+    // How long it takes until a use of a message counts only half as much
+    private static final double HALF_LIFE_MILLIS = 14.0 * 24 * 60 * 60 * 1000;
+
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparingDouble(Entry::getRank).reversed().thenComparing(Entry::getMessage);
+
+    private final Node root = new Node();
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * A message and how often and how recently it was used.
+     */
+    static final class Entry {
+        private final String message;
+        private int count;
+        private long lastUsed;
+        // log2 of the sum over all uses of 2^(time of use / half-life).
+        //
+        // This is proportional to the exponentially decayed number of uses at any point in time,
+        // but does not have to be recomputed as time passes, and it does not change the order of two entries.
+        private double rank;
+
+        Entry(String message, int count, long lastUsed, double rank) {
+            this.message = message;
+            this.count = count;
+            this.lastUsed = lastUsed;
+            this.rank = rank;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getLastUsed() {
+            return lastUsed;
+        }
+
+        double getRank() {
+            return rank;
+        }
+
+        void recordUse(long time) {
+            double use = time / HALF_LIFE_MILLIS;
+            if (this.count == 0) {
+                this.rank = use;
+            } else {
+                // log2(2^rank + 2^use) computed without overflowing
+                double max = Math.max(this.rank, use);
+                double min = Math.min(this.rank, use);
+                this.rank = max + Math.log1p(Math.pow(2, min - max)) / Math.log(2);
+            }
+
+            this.count++;
+            this.lastUsed = Math.max(this.lastUsed, time);
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<Entry> best = new ArrayList<>();
+        // only used by the nodes at MAX_DEPTH
+        private List<Entry> all;
+    }
+
+    private static String key(String message) {
+        return message.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Records that the message has been used.
+     *
+     * @param message the message
+     * @param time the time of the use in milliseconds since the epoch
+     */
+    void recordUse(String message, long time) {
+        var entry = this.entries.get(message);
+        boolean isNew = entry == null;
+        if (isNew) {
+            entry = new Entry(message, 0, time, 0.0);
+            this.entries.put(message, entry);
+        }
+
+        entry.recordUse(time);
+        this.updatePath(entry, isNew);
+    }
+
+    /**
+     * Adds a previously persisted entry.
+     *
+     * @param entry the entry, the message must not have been added before
+     */
+    void add(Entry entry) {
+        this.entries.put(entry.getMessage(), entry);
+        this.updatePath(entry, true);
+    }
+
+    Collection<Entry> entries() {
+        return this.entries.values();
+    }
+
+    private void updatePath(Entry entry, boolean isNew) {
+        String key = key(entry.getMessage());
+        Node node = this.root;
+        for (int depth = 0; ; depth++) {
+            node.best.remove(entry);
+            int index = 0;
+            while (index < node.best.size() && RANKING.compare(node.best.get(index), entry) < 0) {
+                index++;
+            }
+
+            if (index < MAX_SUGGESTIONS) {
+                node.best.add(index, entry);
+                if (node.best.size() > MAX_SUGGESTIONS) {
+                    node.best.removeLast();
+                }
+            }
+
+            if (depth == MAX_DEPTH) {
+                if (node.all == null) {
+                    node.all = new ArrayList<>();
+                }
+
+                if (isNew) {
+                    node.all.add(entry);
+                }
+                return;
+            }
+
+            if (depth == key.length()) {
+                return;
+            }
+
+            node = node.children.computeIfAbsent(key.charAt(depth), c -> new Node());
+        }
+    }
+
+    /**
+     * Returns the best ranked messages that start with the prefix, ignoring the case.
+     *
+     * @param prefix the prefix
+     * @param limit the maximum number of messages, at most {@link #MAX_SUGGESTIONS}
+     * @return the messages, best ranked first
+     */
+    List<String> suggest(String prefix, int limit) {
+        String key = key(prefix);
+
+        Node node = this.root;
+        int depth = 0;
+        while (depth < key.length() && depth < MAX_DEPTH) {
+            node = node.children.get(key.charAt(depth));
+            if (node == null) {
+                return List.of();
+            }
+            depth++;
+        }
+
+        if (key.length() <= MAX_DEPTH) {
+            return node.best.stream().limit(limit).map(Entry::getMessage).toList();
+        }
+
+        return node.all.stream()
+                .filter(entry -> key(entry.getMessage()).startsWith(key))
+                .sorted(RANKING)
+                .limit(limit)
+                .map(Entry::getMessage)
+                .toList();
+    }
+}
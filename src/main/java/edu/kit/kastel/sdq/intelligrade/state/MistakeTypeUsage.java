@@ -0,0 +1,74 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.RoamingType;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.MistakeType;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Counts how often the tutor used each mistake type in an exercise, so that the most used mistake types
+ * can be offered first.
+ */
+@Service
+@State(
+        name = "edu.kit.kastel.sdq.intelligrade.state.MistakeTypeUsage",
+        storages = @Storage(value = "IntelliGradeMistakeTypeUsage.xml", roamingType = RoamingType.DISABLED))
+public final class MistakeTypeUsage implements PersistentStateComponent<MistakeTypeUsage.InternalState> {
+    private final InternalState state = new InternalState();
+    // Incremented on every change, so that cached rankings know when they are outdated
+    private long modificationCount = 0;
+
+    // The state needs to be public for IntelliJ to serialize it
+    @SuppressWarnings("java:S1104")
+    public static class InternalState {
+        // "<exercise id>:<mistake type id>" -> number of uses
+        public Map<String, Integer> counts = new HashMap<>();
+    }
+
+    public static MistakeTypeUsage getInstance() {
+        return ApplicationManager.getApplication().getService(MistakeTypeUsage.class);
+    }
+
+    private static String key(long exerciseId, MistakeType mistakeType) {
+        return "%d:%s".formatted(exerciseId, mistakeType.getId());
+    }
+
+    @Override
+    public synchronized InternalState getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized void loadState(@NonNull InternalState state) {
+        XmlSerializerUtil.copyBean(state, this.state);
+        this.modificationCount++;
+    }
+
+    /**
+     * Records that the tutor used the mistake type in the exercise.
+     *
+     * @param exerciseId the id of the exercise
+     * @param mistakeType the used mistake type
+     */
+    public synchronized void recordUse(long exerciseId, MistakeType mistakeType) {
+        this.state.counts.merge(key(exerciseId, mistakeType), 1, Integer::sum);
+        this.modificationCount++;
+    }
+
+    public synchronized int getCount(long exerciseId, MistakeType mistakeType) {
+        return this.state.counts.getOrDefault(key(exerciseId, mistakeType), 0);
+    }
+
+    public synchronized long getModificationCount() {
+        return this.modificationCount;
+    }
+}
@@ -1,12 +1,10 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.state;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -14,9 +12,11 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.ui.MessageDialogBuilder;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.jcef.JBCefApp;
 import edu.kit.kastel.sdq.artemis4j.ArtemisClientException;
 import edu.kit.kastel.sdq.artemis4j.ArtemisNetworkException;
@@ -45,12 +45,13 @@ public class PluginState {
 
     private static PluginState pluginState;
 
-    private final List<Consumer<ArtemisConnection>> connectedListeners = new ArrayList<>();
-    private final List<Consumer<ProgrammingExercise>> exerciseSelectedListeners = new ArrayList<>();
-    private final List<Consumer<ActiveAssessment>> assessmentStartedListeners = new ArrayList<>();
-    private final List<Runnable> assessmentClosedListeners = new ArrayList<>();
-    private final List<Consumer<GradingConfig.GradingConfigDTO>> gradingConfigChangedListeners = new ArrayList<>();
-    private final List<Runnable> missingGradingConfigListeners = new ArrayList<>();
+    private final ListenerList<Consumer<ArtemisConnection>> connectedListeners = new ListenerList<>();
+    private final ListenerList<Consumer<ProgrammingExercise>> exerciseSelectedListeners = new ListenerList<>();
+    private final ListenerList<Consumer<ActiveAssessment>> assessmentStartedListeners = new ListenerList<>();
+    private final ListenerList<Runnable> assessmentClosedListeners = new ListenerList<>();
+    private final ListenerList<Consumer<GradingConfig.GradingConfigDTO>> gradingConfigChangedListeners =
+            new ListenerList<>();
+    private final ListenerList<Runnable> missingGradingConfigListeners = new ListenerList<>();
     private final Map<Long, User> knownAssessors = new HashMap<>();
 
     private ArtemisConnection connection;
@@ -65,6 +66,7 @@ public class PluginState {
         //
         // With this, PluginState will be notified when an assessment changes.
         AssessmentTracker.INSTANCE.addListener(changedAssessment -> {
+            var previousAssessment = activeAssessment;
             activeAssessment = changedAssessment;
 
             // The invokeLater ensures that the listeners are running on EDT, which is required for UI updates.
@@ -79,6 +81,11 @@ public class PluginState {
                     ApplicationManager.getApplication().invokeLater(() -> listener.accept(changedAssessment));
                 }
             }
+
+            // Release everything that is bound to the previous assessment, after the listeners above have run
+            if (previousAssessment != null && previousAssessment != changedAssessment) {
+                ApplicationManager.getApplication().invokeLater(() -> Disposer.dispose(previousAssessment));
+            }
         });
 
         // Try to parse the grading config once from storage
@@ -177,9 +184,10 @@ public class PluginState {
      * This is used to highlight the input text box in which the grading config should be entered.
      *
      * @param listener the listener to be called
+     * @param parentDisposable the listener is removed once this is disposed
      */
-    public void registerMissingGradingConfigListeners(Runnable listener) {
-        this.missingGradingConfigListeners.add(listener);
+    public void registerMissingGradingConfigListeners(Runnable listener, Disposable parentDisposable) {
+        this.missingGradingConfigListeners.add(listener, parentDisposable);
     }
 
     /**
@@ -188,23 +196,30 @@ public class PluginState {
      * This is used to update the UI when the grading config changes.
      *
      * @param listener the listener to be called
+     * @param parentDisposable the listener is removed once this is disposed
      */
-    public void registerGradingConfigChangedListener(Consumer<GradingConfig.GradingConfigDTO> listener) {
-        this.gradingConfigChangedListeners.add(listener);
+    public void registerGradingConfigChangedListener(
+            Consumer<GradingConfig.GradingConfigDTO> listener, Disposable parentDisposable) {
+        if (!this.gradingConfigChangedListeners.add(listener, parentDisposable)) {
+            return;
+        }
+
         if (this.cachedGradingConfigDTO != null) {
             // If the grading config is already loaded, call the listener immediately
             listener.accept(this.cachedGradingConfigDTO);
         }
     }
 
-    public void registerConnectedListener(Consumer<ArtemisConnection> listener) {
-        this.connectedListeners.add(listener);
-        listener.accept(this.connection);
+    public void registerConnectedListener(Consumer<ArtemisConnection> listener, Disposable parentDisposable) {
+        if (this.connectedListeners.add(listener, parentDisposable)) {
+            listener.accept(this.connection);
+        }
     }
 
-    public void registerExerciseSelectedListener(Consumer<ProgrammingExercise> listener) {
-        this.exerciseSelectedListeners.add(listener);
-        listener.accept(this.activeExercise);
+    public void registerExerciseSelectedListener(Consumer<ProgrammingExercise> listener, Disposable parentDisposable) {
+        if (this.exerciseSelectedListeners.add(listener, parentDisposable)) {
+            listener.accept(this.activeExercise);
+        }
     }
 
     public boolean isAssessing() {
@@ -362,15 +377,27 @@ public class PluginState {
         return activeExercise.getCourse().isInstructor(getAssessor());
     }
 
-    public void registerAssessmentStartedListener(Consumer<ActiveAssessment> listener) {
-        this.assessmentStartedListeners.add(listener);
-        if (this.isAssessing()) {
+    /**
+     * Registers a listener that is called (on the EDT) whenever an assessment is started.
+     * If an assessment is already active, the listener is called immediately.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the listener is removed once this is disposed
+     */
+    public void registerAssessmentStartedListener(Consumer<ActiveAssessment> listener, Disposable parentDisposable) {
+        if (this.assessmentStartedListeners.add(listener, parentDisposable) && this.isAssessing()) {
             listener.accept(activeAssessment);
         }
     }
 
-    public void registerAssessmentClosedListener(Runnable listener) {
-        this.assessmentClosedListeners.add(listener);
+    /**
+     * Registers a listener that is called (on the EDT) whenever the active assessment is closed.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the listener is removed once this is disposed
+     */
+    public void registerAssessmentClosedListener(Runnable listener, Disposable parentDisposable) {
+        this.assessmentClosedListeners.add(listener, parentDisposable);
     }
 
     private void resetState() {
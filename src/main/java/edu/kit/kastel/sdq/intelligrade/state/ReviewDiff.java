@@ -0,0 +1,138 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.kit.kastel.sdq.artemis4j.client.AnnotationSource;
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+
+/**
+ * The differences between the annotations of the first and the second correction round, shown in review mode.
+ * <p>
+ * The annotations of both rounds are aligned by their fingerprint: the mistake type, the location and the message.
+ * A second round annotation with the same fingerprint as a first round annotation is unchanged. If only the
+ * mistake type and the location match, the annotation has been changed. Annotations that have been suppressed
+ * are removed, independent of their round.
+ * <p>
+ * The alignment joins the annotations with hash maps, so it is linear in the number of annotations.
+ */
+public final class ReviewDiff {
+    public static final ReviewDiff EMPTY = new ReviewDiff(Map.of());
+
+    private final Map<Annotation, Status> statuses;
+
+    public enum Status {
+        UNCHANGED,
+        ADDED,
+        CHANGED,
+        REMOVED
+    }
+
+    // the columns are ignored, so that a slightly different selection of the same code still matches
+    private record Position(String mistakeTypeId, String path, int startLine, int endLine) {
+        static Position of(Annotation annotation) {
+            return new Position(
+                    annotation.getMistakeType().getId(),
+                    annotation.getFilePath().replace("\\", "/"),
+                    annotation.getStartLine(),
+                    annotation.getEndLine());
+        }
+    }
+
+    private record Fingerprint(Position position, String message) {
+        static Fingerprint of(Annotation annotation) {
+            // whitespace differences are not considered a change of the message
+            String message = annotation
+                    .getCustomMessage()
+                    .map(text -> text.strip().replaceAll("\\s+", " "))
+                    .orElse("");
+            return new Fingerprint(Position.of(annotation), message);
+        }
+    }
+
+    private ReviewDiff(Map<Annotation, Status> statuses) {
+        this.statuses = statuses;
+    }
+
+    /**
+     * Aligns the annotations of both correction rounds.
+     *
+     * @param annotations all annotations of the assessment, including the suppressed ones
+     * @return the differences between the rounds
+     */
+    public static ReviewDiff compute(Collection<Annotation> annotations) {
+        Map<Annotation, Status> statuses = new IdentityHashMap<>();
+
+        // build the hash tables over the first round
+        Map<Fingerprint, Deque<Annotation>> firstRoundByFingerprint = new HashMap<>();
+        Map<Position, Deque<Annotation>> firstRoundByPosition = new HashMap<>();
+        List<Annotation> secondRound = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            if (annotation.isSuppressed()) {
+                statuses.put(annotation, Status.REMOVED);
+            } else if (annotation.getSource() == AnnotationSource.MANUAL_FIRST_ROUND) {
+                firstRoundByFingerprint
+                        .computeIfAbsent(Fingerprint.of(annotation), key -> new ArrayDeque<>())
+                        .add(annotation);
+                firstRoundByPosition
+                        .computeIfAbsent(Position.of(annotation), key -> new ArrayDeque<>())
+                        .add(annotation);
+            } else if (annotation.getSource() == AnnotationSource.MANUAL_SECOND_ROUND) {
+                secondRound.add(annotation);
+            }
+        }
+
+        // probe with the second round, exact matches first so that they are not taken as a changed partner
+        Set<Annotation> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Annotation> unmatched = new ArrayList<>();
+        for (Annotation annotation : secondRound) {
+            var candidates = firstRoundByFingerprint.get(Fingerprint.of(annotation));
+            if (candidates != null && !candidates.isEmpty()) {
+                matched.add(candidates.poll());
+            } else {
+                unmatched.add(annotation);
+            }
+        }
+
+        for (Annotation annotation : unmatched) {
+            Annotation partner = pollUnmatched(firstRoundByPosition.get(Position.of(annotation)), matched);
+            if (partner == null) {
+                statuses.put(annotation, Status.ADDED);
+            } else {
+                matched.add(partner);
+                statuses.put(annotation, Status.CHANGED);
+                statuses.put(partner, Status.CHANGED);
+            }
+        }
+
+        return new ReviewDiff(statuses);
+    }
+
+    private static Annotation pollUnmatched(Deque<Annotation> candidates, Set<Annotation> matched) {
+        if (candidates == null) {
+            return null;
+        }
+
+        while (!candidates.isEmpty()) {
+            var candidate = candidates.poll();
+            if (!matched.contains(candidate)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    public Status getStatus(Annotation annotation) {
+        return this.statuses.getOrDefault(annotation, Status.UNCHANGED);
+    }
+}
@@ -0,0 +1,191 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+import edu.kit.kastel.sdq.artemis4j.grading.Assessment;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.MistakeType;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.Points;
+import edu.kit.kastel.sdq.artemis4j.grading.penalty.RatingGroup;
+
+/**
+ * Caches the number of (non-suppressed) annotations and the points of every mistake type,
+ * the points of every rating group and the total points of the assessment.
+ * <p>
+ * When annotations change, only the points of the affected mistake types are recalculated.
+ * A rating group is only recalculated if the points of a mistake type in it (or in one of its subgroups)
+ * changed, and the totals only if the points of a rating group changed.
+ * <p>
+ * The points themselves are calculated by artemis4j, so that the penalty limits of the rating groups
+ * are applied exactly like when the assessment is submitted.
+ */
+public class ScoreModel {
+    private final Assessment assessment;
+    // The parent of every rating group that is a subgroup, artemis4j only knows the subgroups of a group
+    private final Map<RatingGroup, RatingGroup> parentGroups = new IdentityHashMap<>();
+
+    private final Map<MistakeType, Integer> counts = new IdentityHashMap<>();
+    // null if the mistake type does not subtract/add any points
+    private final Map<MistakeType, Points> mistakeTypePoints = new IdentityHashMap<>();
+    private final Map<RatingGroup, Points> ratingGroupPoints = new IdentityHashMap<>();
+    private Totals totals;
+    // the tests do not change during an assessment
+    private Double testPoints;
+
+    /**
+     * The points of the entire assessment.
+     */
+    public record Totals(double testPoints, double annotationPoints, double totalPoints, double maxPoints) {}
+
+    /**
+     * What changed in an update of the score model.
+     *
+     * @param mistakeTypes the mistake types whose number of annotations or points changed
+     * @param ratingGroups the rating groups whose points changed
+     * @param totalsChanged whether the totals changed
+     */
+    public record Changes(Set<MistakeType> mistakeTypes, Set<RatingGroup> ratingGroups, boolean totalsChanged) {
+        public boolean isEmpty() {
+            return this.mistakeTypes.isEmpty() && this.ratingGroups.isEmpty() && !this.totalsChanged;
+        }
+    }
+
+    ScoreModel(Assessment assessment) {
+        this.assessment = assessment;
+
+        for (var ratingGroup : assessment.getConfig().getRatingGroups()) {
+            this.collectParentGroups(ratingGroup);
+        }
+    }
+
+    private void collectParentGroups(RatingGroup ratingGroup) {
+        for (var subGroup : ratingGroup.listSubGroups()) {
+            this.parentGroups.put(subGroup, ratingGroup);
+            this.collectParentGroups(subGroup);
+        }
+    }
+
+    /**
+     * Returns the number of annotations of the mistake type, not counting suppressed ones.
+     *
+     * @param mistakeType the mistake type
+     * @return the number of annotations
+     */
+    public synchronized int getCount(MistakeType mistakeType) {
+        return this.counts.getOrDefault(mistakeType, 0);
+    }
+
+    /**
+     * Returns the points the mistake type contributes to the assessment.
+     *
+     * @param mistakeType the mistake type
+     * @return the points, or null if it does not contribute any
+     */
+    public synchronized Points getPoints(MistakeType mistakeType) {
+        if (!this.mistakeTypePoints.containsKey(mistakeType)) {
+            this.mistakeTypePoints.put(
+                    mistakeType,
+                    this.assessment.calculatePointsForMistakeType(mistakeType).orElse(null));
+        }
+
+        return this.mistakeTypePoints.get(mistakeType);
+    }
+
+    /**
+     * Returns the points of the rating group, limited by its minimum and maximum penalty.
+     *
+     * @param ratingGroup the rating group
+     * @return the points of the rating group
+     */
+    public synchronized Points getPoints(RatingGroup ratingGroup) {
+        return this.ratingGroupPoints.computeIfAbsent(ratingGroup, this.assessment::calculatePointsForRatingGroup);
+    }
+
+    public synchronized Totals getTotals() {
+        if (this.totals == null) {
+            if (this.testPoints == null) {
+                this.testPoints = this.assessment.calculateTotalPointsOfTests();
+            }
+
+            this.totals = new Totals(
+                    this.testPoints,
+                    this.assessment.calculateTotalPointsOfAnnotations(),
+                    this.assessment.calculateTotalPoints(),
+                    this.assessment.getMaxPoints());
+        }
+
+        return this.totals;
+    }
+
+    /**
+     * Updates the cached values.
+     *
+     * @param added the annotations that are no longer suppressed or were added
+     * @param removed the annotations that are now suppressed or were removed
+     * @param modified the annotations whose custom score might have changed
+     * @return what changed
+     */
+    synchronized Changes update(
+            Collection<Annotation> added, Collection<Annotation> removed, Collection<Annotation> modified) {
+        Set<MistakeType> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<MistakeType> changedMistakeTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Annotation annotation : added) {
+            this.counts.merge(annotation.getMistakeType(), 1, Integer::sum);
+            changedMistakeTypes.add(annotation.getMistakeType());
+        }
+
+        for (Annotation annotation : removed) {
+            this.counts.merge(annotation.getMistakeType(), -1, Integer::sum);
+            changedMistakeTypes.add(annotation.getMistakeType());
+        }
+
+        affected.addAll(changedMistakeTypes);
+        for (Annotation annotation : modified) {
+            affected.add(annotation.getMistakeType());
+        }
+
+        // the rating groups that contain a mistake type whose points changed
+        Set<RatingGroup> affectedGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MistakeType mistakeType : affected) {
+            if (this.counts.getOrDefault(mistakeType, 0) == 0) {
+                this.counts.remove(mistakeType);
+            }
+
+            boolean wasCalculated = this.mistakeTypePoints.containsKey(mistakeType);
+            Points oldPoints = this.mistakeTypePoints.remove(mistakeType);
+            Points newPoints = this.getPoints(mistakeType);
+            if (!wasCalculated || !Objects.equals(oldPoints, newPoints)) {
+                changedMistakeTypes.add(mistakeType);
+
+                // the points of a group include the points of its subgroups
+                for (var group = mistakeType.getRatingGroup(); group != null; group = this.parentGroups.get(group)) {
+                    affectedGroups.add(group);
+                }
+            }
+        }
+
+        Set<RatingGroup> changedGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (RatingGroup ratingGroup : affectedGroups) {
+            Points oldPoints = this.ratingGroupPoints.remove(ratingGroup);
+            if (!Objects.equals(oldPoints, this.getPoints(ratingGroup))) {
+                changedGroups.add(ratingGroup);
+            }
+        }
+
+        boolean totalsChanged = false;
+        if (!changedGroups.isEmpty() || this.totals == null) {
+            Totals oldTotals = this.totals;
+            this.totals = null;
+            totalsChanged = !this.getTotals().equals(oldTotals);
+        }
+
+        return new Changes(changedMistakeTypes, changedGroups, totalsChanged);
+    }
+}
@@ -0,0 +1,133 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.templatediff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.kastel.sdq.artemis4j.client.AnnotationSource;
+import edu.kit.kastel.sdq.artemis4j.grading.Annotation;
+import edu.kit.kastel.sdq.artemis4j.grading.location.LineColumn;
+import edu.kit.kastel.sdq.artemis4j.grading.location.Location;
+import edu.kit.kastel.sdq.intelligrade.state.LineMapping;
+
+/**
+ * Computes where the annotations that were made on an earlier commit of the submission belong
+ * in the checked-out commit.
+ * <p>
+ * Only manual annotations are remapped, the autograder annotations can be recreated by running the autograder.
+ */
+public final class AnnotationRemapper {
+    /**
+     * The result of the remapping.
+     *
+     * @param newLocations the new location of each annotation that has to be moved. Annotations on lines that
+     *                     have been changed are moved to the first line that replaced them.
+     * @param needsReview the annotations on lines that have been changed or deleted, or in deleted files.
+     *                    They can not be mapped exactly and have to be reviewed by the tutor.
+     */
+    public record Result(Map<Annotation, Location> newLocations, List<Annotation> needsReview) {}
+
+    private AnnotationRemapper() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Remaps the annotations through the diff. The lines of each file are mapped in a single pass.
+     *
+     * @param annotations the annotations of the assessment
+     * @param diff the diff between the commit of the annotations and the checked-out commit
+     * @return the new locations and the annotations that could not be remapped
+     */
+    public static Result remap(List<Annotation> annotations, CommitDiff diff) {
+        Map<String, List<Annotation>> annotationsByFile = new LinkedHashMap<>();
+        for (Annotation annotation : annotations) {
+            if (isRemapped(annotation)) {
+                annotationsByFile
+                        .computeIfAbsent(annotation.getFilePath().replace("\\", "/"), path -> new ArrayList<>())
+                        .add(annotation);
+            }
+        }
+
+        Map<Annotation, Location> newLocations = new IdentityHashMap<>();
+        List<Annotation> needsReview = new ArrayList<>();
+        for (var entry : annotationsByFile.entrySet()) {
+            String path = entry.getKey();
+            var change = diff.getChange(path);
+            if (change.newPath() == null) {
+                needsReview.addAll(entry.getValue());
+                continue;
+            }
+
+            Map<Integer, Integer> mappedLines = mapLines(entry.getValue(), change.lineMapping());
+            for (Annotation annotation : entry.getValue()) {
+                var location = annotation.getLocation();
+                int start = mappedLines.get(location.start().line());
+                int end = mappedLines.get(location.end().line());
+
+                if (start == LineMapping.DELETED || end == LineMapping.DELETED) {
+                    // the lines are gone, so the annotation is moved next to the code that replaced them
+                    int line = start == LineMapping.DELETED
+                            ? change.lineMapping().findReplacement(location.start().line())
+                            : start;
+                    newLocations.put(annotation, new Location(change.newPath(), line, line));
+                    needsReview.add(annotation);
+                } else if (start != location.start().line()
+                        || end != location.end().line()
+                        || !change.newPath().equals(path)) {
+                    newLocations.put(annotation, moveLocation(location, change.newPath(), start, end));
+                }
+            }
+        }
+
+        return new Result(newLocations, needsReview);
+    }
+
+    /**
+     * Returns whether the annotation is remapped. Only manual annotations are, the autograder annotations
+     * can be recreated by running the autograder.
+     *
+     * @param annotation the annotation
+     * @return true if the annotation is manual and not suppressed
+     */
+    public static boolean isRemapped(Annotation annotation) {
+        boolean isManual = annotation.getSource() == AnnotationSource.MANUAL_FIRST_ROUND
+                || annotation.getSource() == AnnotationSource.MANUAL_SECOND_ROUND;
+        return isManual && !annotation.isSuppressed();
+    }
+
+    private static Map<Integer, Integer> mapLines(List<Annotation> annotations, LineMapping mapping) {
+        int[] lines = annotations.stream()
+                .flatMapToInt(annotation -> Arrays.stream(new int[] {
+                    annotation.getLocation().start().line(),
+                    annotation.getLocation().end().line()
+                }))
+                .sorted()
+                .distinct()
+                .toArray();
+        int[] mapped = mapping.mapSortedLines(lines);
+
+        Map<Integer, Integer> result = HashMap.newHashMap(lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            result.put(lines[i], mapped[i]);
+        }
+
+        return result;
+    }
+
+    private static Location moveLocation(Location location, String path, int startLine, int endLine) {
+        // the lines have not been changed, so the columns are still valid
+        var startColumn = location.start().column();
+        var endColumn = location.end().column();
+        if (startColumn.isPresent() && endColumn.isPresent()) {
+            return new Location(
+                    path, new LineColumn(startLine, startColumn.get()), new LineColumn(endLine, endColumn.get()));
+        }
+
+        return new Location(path, startLine, endLine);
+    }
+}
@@ -0,0 +1,121 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.templatediff;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.kastel.sdq.intelligrade.state.LineMapping;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * The changes of the files of the submission between an earlier commit and the checked-out commit.
+ * <p>
+ * Students push to the same repository, so the earlier commits are part of the history of the cloned submission
+ * and the diff can be computed without accessing Artemis.
+ *
+ * @param changedFiles the changes by the path of the file in the earlier commit, relative to the assignment
+ *                     directory. Files that have not changed are not contained.
+ */
+public record CommitDiff(Map<String, FileChange> changedFiles) {
+    /**
+     * The change of a single file.
+     *
+     * @param newPath the path of the file in the checked-out commit, or null if the file has been deleted
+     * @param lineMapping maps the lines of the earlier version to the lines of the checked-out version
+     */
+    public record FileChange(String newPath, LineMapping lineMapping) {}
+
+    /**
+     * Returns the changes of the file.
+     *
+     * @param path the path of the file in the earlier commit, relative to the assignment directory
+     * @return the changes, an unchanged file keeps its path and lines
+     */
+    public FileChange getChange(String path) {
+        return this.changedFiles.getOrDefault(path, new FileChange(path, LineMapping.IDENTITY));
+    }
+
+    /**
+     * Reads the hash of the checked-out commit.
+     *
+     * @param assignmentDirectory the directory of the student repository
+     * @return the full hash, or null if the directory is not a git repository
+     * @throws IOException if the repository could not be read
+     */
+    public static String readHeadCommit(Path assignmentDirectory) throws IOException {
+        try (Repository repository = GitRepositories.open(assignmentDirectory)) {
+            var headId = repository == null ? null : repository.resolve(Constants.HEAD);
+            return headId == null ? null : headId.getName();
+        }
+    }
+
+    /**
+     * Computes the changes between the earlier commit and the checked-out commit.
+     * <p>
+     * This reads the repository, so it should not be called on the EDT.
+     *
+     * @param assignmentDirectory the directory of the student repository
+     * @param earlierCommit the hash of the earlier commit
+     * @return the changes of the files in the assignment directory
+     * @throws IOException if the repository could not be read or does not contain the commit
+     */
+    public static CommitDiff compute(Path assignmentDirectory, String earlierCommit) throws IOException {
+        try (Repository repository = GitRepositories.open(assignmentDirectory)) {
+            if (repository == null) {
+                throw new IOException("%s is not a git repository".formatted(assignmentDirectory));
+            }
+
+            try (RevWalk walk = new RevWalk(repository);
+                    DiffFormatter formatter = GitRepositories.createFormatter(repository)) {
+                var headId = repository.resolve(Constants.HEAD);
+                var earlierId = repository.resolve(earlierCommit);
+                if (headId == null || earlierId == null) {
+                    throw new IOException("Commit %s not found".formatted(earlierCommit));
+                }
+
+                RevCommit head = walk.parseCommit(headId);
+                RevCommit earlier = walk.parseCommit(earlierId);
+
+                Map<String, FileChange> changedFiles = new HashMap<>();
+                for (DiffEntry entry : formatter.scan(earlier.getTree(), head.getTree())) {
+                    if (entry.getChangeType() == DiffEntry.ChangeType.ADD) {
+                        // there cannot be annotations in a file that did not exist
+                        continue;
+                    }
+
+                    var oldPath = GitRepositories.toAssignmentPath(repository, assignmentDirectory, entry.getOldPath());
+                    if (oldPath.isEmpty()) {
+                        continue;
+                    }
+
+                    if (entry.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                        changedFiles.put(oldPath.get(), new FileChange(null, LineMapping.IDENTITY));
+                        continue;
+                    }
+
+                    List<LineMapping.Edit> edits = new ArrayList<>();
+                    for (Edit edit : formatter.toFileHeader(entry).toEditList()) {
+                        edits.add(new LineMapping.Edit(
+                                edit.getBeginA(), edit.getEndA(), edit.getBeginB(), edit.getEndB()));
+                    }
+
+                    var newPath = GitRepositories.toAssignmentPath(repository, assignmentDirectory, entry.getNewPath());
+                    changedFiles.put(
+                            oldPath.get(), new FileChange(newPath.orElse(null), new LineMapping(edits)));
+                }
+
+                return new CommitDiff(Map.copyOf(changedFiles));
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.templatediff;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+
+/**
+ * Helpers for reading the git repository of the cloned submission.
+ */
+final class GitRepositories {
+    private static final Logger LOG = Logger.getInstance(GitRepositories.class);
+
+    // the fetched template is kept outside of refs/heads and refs/remotes, so it does not show up in the IDE
+    private static final String TEMPLATE_REF = "refs/intelligrade/template";
+    // Artemis names the template repository of an exercise <project key>-exercise
+    private static final String TEMPLATE_REPOSITORY_SUFFIX = "-exercise.git";
+    private static final int FETCH_TIMEOUT_SECONDS = 30;
+
+    // The templates are cached in one bare repository per exercise, and fetched from Artemis at most once
+    // per session, so that the later submissions of an exercise do not need the network.
+    private static final Path TEMPLATE_CACHE = PathManager.getSystemDir().resolve("intelligrade").resolve("templates");
+    private static final Set<Long> FETCHED_EXERCISES = ConcurrentHashMap.newKeySet();
+
+    private GitRepositories() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Opens the repository that contains the directory. The repository has to be closed by the caller.
+     *
+     * @param directory a directory in the repository
+     * @return the repository, or null if the directory is not in a git repository
+     * @throws IOException if the repository could not be opened
+     */
+    static Repository open(Path directory) throws IOException {
+        var builder = new FileRepositoryBuilder().findGitDir(directory.toFile());
+        if (builder.getGitDir() == null) {
+            return null;
+        }
+
+        return builder.setMustExist(true).build();
+    }
+
+    /**
+     * Creates a formatter that only computes the diffs, without writing them anywhere.
+     */
+    static DiffFormatter createFormatter(Repository repository) {
+        var formatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        formatter.setRepository(repository);
+        formatter.setDiffComparator(RawTextComparator.WS_IGNORE_TRAILING);
+        formatter.setDetectRenames(true);
+        return formatter;
+    }
+
+    /**
+     * Converts a path of the diff to a path relative to the assignment directory.
+     * The paths of a diff are relative to the work tree, which might contain more than the assignment.
+     *
+     * @param repository the repository of the diff
+     * @param assignmentDirectory the assignment directory
+     * @param path the path in the diff
+     * @return the relative path, or empty if the file is not in the assignment directory
+     */
+    static Optional<String> toAssignmentPath(Repository repository, Path assignmentDirectory, String path) {
+        Path assignment = assignmentDirectory.toAbsolutePath();
+        Path file = repository.getWorkTree().toPath().toAbsolutePath().resolve(path.replace('/', File.separatorChar));
+        if (!file.startsWith(assignment)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(assignment.relativize(file).toString().replace("\\", "/"));
+    }
+
+    /**
+     * Fetches the current commit of the template repository of the exercise into the repository.
+     * <p>
+     * The template repository is next to the student repository on the same server, so it is fetched
+     * from the URL of the origin remote with the name of the repository replaced. The template is cached
+     * per exercise; if it cannot be fetched, the cached commit is used.
+     *
+     * @param repository the repository of the submission
+     * @param exerciseId the id of the exercise of the submission
+     * @param credentials the credentials for the template repository, or null to use the SSH keys of the user
+     * @return the id of the template commit, or null if the URL of the template is not known
+     * @throws IOException if the template could not be fetched and is not cached
+     */
+    static ObjectId fetchTemplate(Repository repository, long exerciseId, CredentialsProvider credentials)
+            throws IOException {
+        var originUrl = repository
+                .getConfig()
+                .getString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "url");
+        var templateUrl = originUrl == null ? null : toTemplateUrl(originUrl);
+        if (templateUrl == null) {
+            return null;
+        }
+
+        var cacheDirectory = TEMPLATE_CACHE.resolve(exerciseId + ".git").toFile();
+        // the cache of an exercise might be used by a computation that has not finished yet
+        synchronized (GitRepositories.class) {
+            try (Repository cache = openCache(cacheDirectory)) {
+                if (!FETCHED_EXERCISES.contains(exerciseId)) {
+                    try {
+                        fetch(cache, templateUrl, "+" + Constants.HEAD + ":" + TEMPLATE_REF, credentials);
+                        FETCHED_EXERCISES.add(exerciseId);
+                    } catch (IOException e) {
+                        if (cache.resolve(TEMPLATE_REF) == null) {
+                            throw e;
+                        }
+
+                        LOG.warn("Failed to fetch the template repository, using the cached template", e);
+                    }
+                }
+
+                if (cache.resolve(TEMPLATE_REF) == null) {
+                    return null;
+                }
+            }
+
+            fetch(repository, cacheDirectory.getAbsolutePath(), "+" + TEMPLATE_REF + ":" + TEMPLATE_REF, null);
+        }
+
+        return repository.resolve(TEMPLATE_REF);
+    }
+
+    private static Repository openCache(File directory) throws IOException {
+        var cache = new FileRepositoryBuilder().setGitDir(directory).setBare().build();
+        if (!cache.getObjectDatabase().exists()) {
+            cache.create(true);
+        }
+
+        return cache;
+    }
+
+    private static void fetch(Repository repository, String url, String refSpec, CredentialsProvider credentials)
+            throws IOException {
+        try (Git git = Git.wrap(repository)) {
+            git.fetch()
+                    .setRemote(url)
+                    .setRefSpecs(new RefSpec(refSpec))
+                    .setCredentialsProvider(credentials)
+                    .setTimeout(FETCH_TIMEOUT_SECONDS)
+                    .call();
+        } catch (GitAPIException e) {
+            throw new IOException("Failed to fetch " + url, e);
+        }
+    }
+
+    /**
+     * Derives the URL of the template repository from the URL of a student repository,
+     * e.g. .../git/EX1/ex1-student.git becomes .../git/EX1/ex1-exercise.git.
+     */
+    private static String toTemplateUrl(String studentUrl) {
+        URIish uri;
+        try {
+            uri = new URIish(studentUrl);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+
+        var path = uri.getPath();
+        int nameStart = path == null ? -1 : path.lastIndexOf('/');
+        int projectStart = nameStart <= 0 ? -1 : path.lastIndexOf('/', nameStart - 1);
+        if (projectStart < 0) {
+            return null;
+        }
+
+        var projectKey = path.substring(projectStart + 1, nameStart);
+        var templatePath =
+                path.substring(0, nameStart + 1) + projectKey.toLowerCase(Locale.ROOT) + TEMPLATE_REPOSITORY_SUFFIX;
+        return uri.setPath(templatePath).toString();
+    }
+}
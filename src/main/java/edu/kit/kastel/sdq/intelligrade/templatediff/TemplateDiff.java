@@ -0,0 +1,144 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.templatediff;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.transport.CredentialsProvider;
+
+/**
+ * The lines of the submission that differ from the template of the exercise, indexed by file.
+ * <p>
+ * Artemis creates the repository of a student as a copy of the template repository, including its history.
+ * The current commit of the template repository is fetched into the cloned submission, and the diff is computed
+ * between the last commit that the template and the submission share and the checked-out commit.
+ *
+ * @param changedLines the changed line ranges by the path of the file, relative to the assignment directory.
+ *                     A file that has been added by the student is changed in all of its lines.
+ */
+public record TemplateDiff(Map<String, List<LineRange>> changedLines) {
+    public static final TemplateDiff EMPTY = new TemplateDiff(Map.of());
+
+    /**
+     * A range of zero-based lines.
+     *
+     * @param start the first line of the range (inclusive)
+     * @param end the last line of the range (exclusive)
+     */
+    public record LineRange(int start, int end) {}
+
+    public TemplateDiff {
+        changedLines = Collections.unmodifiableMap(changedLines);
+    }
+
+    /**
+     * Computes the diff between the template and the checked-out commit of the submission.
+     * <p>
+     * This fetches the template and reads the history of the repository, so it should not be called on the EDT.
+     *
+     * @param assignmentDirectory the directory of the student repository
+     * @param exerciseId the id of the exercise, the template is cached per exercise
+     * @param credentials the credentials for the template repository, or null to use the SSH keys of the user
+     * @return the diff, or {@link #EMPTY} if the directory is not a git repository or has no known template
+     * @throws IOException if the repository could not be read or the template could not be fetched
+     */
+    public static TemplateDiff compute(Path assignmentDirectory, long exerciseId, CredentialsProvider credentials)
+            throws IOException {
+        try (Repository repository = GitRepositories.open(assignmentDirectory)) {
+            var headId = repository == null ? null : repository.resolve(Constants.HEAD);
+            if (headId == null) {
+                return EMPTY;
+            }
+
+            try (RevWalk walk = new RevWalk(repository);
+                    DiffFormatter formatter = GitRepositories.createFormatter(repository)) {
+                RevCommit head = walk.parseCommit(headId);
+                RevCommit template = findTemplateCommit(repository, walk, head, exerciseId, credentials);
+                if (template == null || template.equals(head)) {
+                    return EMPTY;
+                }
+
+                Map<String, List<LineRange>> changedLines = new HashMap<>();
+                for (DiffEntry entry : formatter.scan(template.getTree(), head.getTree())) {
+                    if (entry.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                        continue;
+                    }
+
+                    var path = GitRepositories.toAssignmentPath(repository, assignmentDirectory, entry.getNewPath());
+                    if (path.isEmpty()) {
+                        continue;
+                    }
+
+                    List<LineRange> ranges = new ArrayList<>();
+                    for (Edit edit : formatter.toFileHeader(entry).toEditList()) {
+                        // lines that were only deleted have no counterpart in the submission
+                        if (edit.getLengthB() > 0) {
+                            ranges.add(new LineRange(edit.getBeginB(), edit.getEndB()));
+                        }
+                    }
+
+                    changedLines.put(path.get(), List.copyOf(ranges));
+                }
+
+                return new TemplateDiff(changedLines);
+            }
+        }
+    }
+
+    /**
+     * Finds the last commit of the template that the submission is based on.
+     * <p>
+     * The template might have been updated after the student repository was created, so this is not the current
+     * commit of the template, but the last commit that the history of the template and the submission share.
+     */
+    private static RevCommit findTemplateCommit(
+            Repository repository, RevWalk walk, RevCommit head, long exerciseId, CredentialsProvider credentials)
+            throws IOException {
+        var templateId = GitRepositories.fetchTemplate(repository, exerciseId, credentials);
+        if (templateId == null) {
+            return null;
+        }
+
+        walk.setRevFilter(RevFilter.MERGE_BASE);
+        walk.markStart(head);
+        walk.markStart(walk.parseCommit(templateId));
+        RevCommit mergeBase = walk.next();
+        walk.reset();
+        walk.setRevFilter(RevFilter.ALL);
+
+        return mergeBase == null ? null : walk.parseCommit(mergeBase);
+    }
+
+    /**
+     * Returns whether the file differs from the template.
+     *
+     * @param path the path of the file, relative to the assignment directory
+     * @return true if the file has been added or modified by the student
+     */
+    public boolean isChanged(String path) {
+        return this.changedLines.containsKey(path);
+    }
+
+    /**
+     * Returns the lines of the file that differ from the template.
+     *
+     * @param path the path of the file, relative to the assignment directory
+     * @return the changed line ranges, empty if the file is unchanged
+     */
+    public List<LineRange> getChangedLines(String path) {
+        return this.changedLines.getOrDefault(path, List.of());
+    }
+}
@@ -0,0 +1,126 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.templatediff;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import edu.kit.kastel.sdq.artemis4j.ArtemisNetworkException;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
+import edu.kit.kastel.sdq.intelligrade.state.ListenerList;
+import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import edu.kit.kastel.sdq.intelligrade.utils.ArtemisUtils;
+import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
+
+/**
+ * Keeps the {@link TemplateDiff} of the active assessment.
+ * <p>
+ * The diff is computed in the background when an assessment is started. Until it is available,
+ * no file is considered to be changed.
+ */
+@Service
+public final class TemplateDiffService implements Disposable {
+    private static final Logger LOG = Logger.getInstance(TemplateDiffService.class);
+
+    private final ListenerList<Runnable> diffChangedListeners = new ListenerList<>();
+    private volatile TemplateDiff diff = TemplateDiff.EMPTY;
+    // The running computation and a counter to detect outdated results, both only accessed on the EDT.
+    // A computation is not interrupted, because jgit would close the repository files on interrupts.
+    private Future<?> computation;
+    private int generation = 0;
+
+    public TemplateDiffService() {
+        PluginState.getInstance().registerAssessmentStartedListener(this::computeDiff, this);
+        PluginState.getInstance().registerAssessmentClosedListener(() -> this.setDiff(TemplateDiff.EMPTY), this);
+    }
+
+    public static TemplateDiffService getInstance() {
+        return ApplicationManager.getApplication().getService(TemplateDiffService.class);
+    }
+
+    /**
+     * Registers a listener that is called on the EDT whenever the diff changed.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the disposable of the component that registers the listener
+     */
+    public void registerDiffChangedListener(Runnable listener, Disposable parentDisposable) {
+        this.diffChangedListeners.add(listener, parentDisposable);
+    }
+
+    public TemplateDiff getDiff() {
+        return this.diff;
+    }
+
+    /**
+     * Returns whether the file has been added or modified by the student.
+     *
+     * @param file the file
+     * @return true if the file differs from the template, false if it does not or is not part of the assignment
+     */
+    public boolean isChanged(VirtualFile file) {
+        return IntellijUtil.getAssignmentRelativePath(file)
+                .map(this.diff::isChanged)
+                .orElse(false);
+    }
+
+    private void computeDiff(ActiveAssessment assessment) {
+        this.setDiff(TemplateDiff.EMPTY);
+
+        int computationGeneration = this.generation;
+        var assignmentDirectory =
+                IntellijUtil.getProjectRootDirectory().resolve(ActiveAssessment.ASSIGNMENT_SUB_PATH);
+        long exerciseId = assessment.getAssessment().getSubmission().getExercise().getId();
+        this.computation = AppExecutorUtil.getAppExecutorService().submit(() -> {
+            TemplateDiff result;
+            try {
+                var credentials = ArtemisUtils.createVcsCredentials();
+                result = ArtemisUtils.withPluginClassLoader(
+                        () -> TemplateDiff.compute(assignmentDirectory, exerciseId, credentials));
+                LOG.debug("%d files differ from the template".formatted(result.changedLines().size()));
+            } catch (IOException | ArtemisNetworkException e) {
+                // the diff is only a help for the tutor, the assessment works without it
+                LOG.warn("Failed to compute the diff against the template", e);
+                return;
+            }
+
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (this.generation == computationGeneration) {
+                    this.diff = result;
+                    this.fireDiffChanged();
+                }
+            });
+        });
+    }
+
+    private void setDiff(TemplateDiff newDiff) {
+        this.generation++;
+        if (this.computation != null) {
+            this.computation.cancel(false);
+            this.computation = null;
+        }
+
+        if (this.diff != newDiff) {
+            this.diff = newDiff;
+            this.fireDiffChanged();
+        }
+    }
+
+    private void fireDiffChanged() {
+        for (Runnable listener : this.diffChangedListeners) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (this.computation != null) {
+            this.computation.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.testrunner;
+
+/**
+ * The result of a test that has been run locally.
+ *
+ * @param name the qualified name of the test, e.g. {@code ExampleTest.testSomething}
+ * @param className the fully qualified name of the test class, null if it is not known
+ * @param methodName the name of the test method, null if it is not known
+ * @param outcome whether the test passed
+ * @param details the failure message and stacktrace, empty if the test passed
+ */
+public record LocalTestResult(String name, String className, String methodName, Outcome outcome, String details) {
+    public enum Outcome {
+        PASSED,
+        FAILED,
+        IGNORED
+    }
+
+    /**
+     * Checks whether the test can be run again on its own, which needs its class and method.
+     *
+     * @return true if the test can be run again
+     */
+    public boolean canRunAgain() {
+        return this.className != null && this.methodName != null;
+    }
+}
@@ -0,0 +1,326 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.testrunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
+
+import com.intellij.execution.ProgramRunnerUtil;
+import com.intellij.execution.RunManager;
+import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.configurations.RunProfile;
+import com.intellij.execution.executors.DefaultRunExecutor;
+import com.intellij.execution.junit.JUnitConfiguration;
+import com.intellij.execution.junit.JUnitConfigurationType;
+import com.intellij.execution.testframework.sm.runner.SMTRunnerEventsAdapter;
+import com.intellij.execution.testframework.sm.runner.SMTRunnerEventsListener;
+import com.intellij.execution.testframework.sm.runner.SMTestProxy;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.JavaSdkVersion;
+import com.intellij.openapi.projectRoots.ProjectJdkTable;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.execution.ParametersListUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment;
+import edu.kit.kastel.sdq.intelligrade.state.ListenerList;
+import edu.kit.kastel.sdq.intelligrade.utils.ArtemisUtils;
+import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Runs the tests of the checked-out submission locally and reports their results.
+ * <p>
+ * The tests are run with a JUnit run configuration of the IDE, which is created once and then reused.
+ * Before each run the IDE builds the project incrementally, so only the first run has to compile everything.
+ * <p>
+ * Every run starts a new test JVM. To make that cheap, the JVM dumps the classes it loaded into a shared
+ * archive in the system directory, which the later runs map instead of loading and verifying the classes again.
+ * The workspace is the same for every assessment, so the archive stays valid across assessments.
+ */
+@Service
+public final class LocalTestRunner implements Disposable {
+    private static final Logger LOG = Logger.getInstance(LocalTestRunner.class);
+
+    private static final String CONFIGURATION_NAME = "IntelliGrade: Local Tests";
+    private static final String TEST_DIRECTORY = "src/test/java";
+    private static final String TEST_LOCATION_PROTOCOL = "java:test://";
+
+    private final ListenerList<Runnable> runStartedListeners = new ListenerList<>();
+    private final ListenerList<Consumer<LocalTestResult>> resultListeners = new ListenerList<>();
+    // The connection to the test events of the currently running tests, null if no tests are running
+    private MessageBusConnection connection;
+
+    public static LocalTestRunner getInstance() {
+        return ApplicationManager.getApplication().getService(LocalTestRunner.class);
+    }
+
+    /**
+     * Registers a listener that is called on the EDT when a run of all local tests starts.
+     * Runs of selected tests only replace the results of these tests.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the disposable of the component that registers the listener
+     */
+    public void registerRunStartedListener(Runnable listener, Disposable parentDisposable) {
+        this.runStartedListeners.add(listener, parentDisposable);
+    }
+
+    /**
+     * Registers a listener that is called on the EDT with the result of every test, as soon as it finished.
+     *
+     * @param listener the listener to be called
+     * @param parentDisposable the disposable of the component that registers the listener
+     */
+    public void registerResultListener(Consumer<LocalTestResult> listener, Disposable parentDisposable) {
+        this.resultListeners.add(listener, parentDisposable);
+    }
+
+    /**
+     * Runs all tests in the test directory of the assignment. This must be called on the EDT.
+     */
+    public void runTests() {
+        var testDirectory = this.findTestDirectory();
+        if (testDirectory == null) {
+            return;
+        }
+
+        var project = IntellijUtil.getActiveProject();
+        var settings = this.getOrCreateConfiguration(project, testDirectory);
+        var data = ((JUnitConfiguration) settings.getConfiguration()).getPersistentData();
+        data.TEST_OBJECT = JUnitConfiguration.TEST_DIRECTORY;
+        data.setDirName(testDirectory.getPath());
+
+        LOG.debug("Running local tests in " + testDirectory.getPresentableUrl());
+        this.execute(project, settings, true);
+    }
+
+    /**
+     * Runs the given tests again, e.g. to check whether a failure is reproducible.
+     * The results of the other tests are kept. This must be called on the EDT.
+     *
+     * @param tests the tests to run, the ones that can not be run on their own are skipped
+     */
+    public void runTestsAgain(Collection<LocalTestResult> tests) {
+        // a pattern of the form "Class,method" selects a single method of a class
+        LinkedHashSet<String> patterns = new LinkedHashSet<>();
+        for (var test : tests) {
+            if (test.canRunAgain()) {
+                patterns.add(test.className() + "," + test.methodName());
+            }
+        }
+
+        var testDirectory = this.findTestDirectory();
+        if (patterns.isEmpty() || testDirectory == null) {
+            return;
+        }
+
+        var project = IntellijUtil.getActiveProject();
+        var settings = this.getOrCreateConfiguration(project, testDirectory);
+        var data = ((JUnitConfiguration) settings.getConfiguration()).getPersistentData();
+        data.TEST_OBJECT = JUnitConfiguration.TEST_PATTERN;
+        data.setPatterns(patterns);
+
+        LOG.debug("Running local tests " + patterns);
+        this.execute(project, settings, false);
+    }
+
+    private VirtualFile findTestDirectory() {
+        var testDirectory = VfsUtil.findFile(
+                IntellijUtil.getProjectRootDirectory()
+                        .resolve(ActiveAssessment.ASSIGNMENT_SUB_PATH)
+                        .resolve(TEST_DIRECTORY),
+                true);
+
+        if (testDirectory == null) {
+            ArtemisUtils.displayGenericWarningBalloon(
+                    "No local tests", "The submission does not contain a %s directory".formatted(TEST_DIRECTORY));
+        }
+
+        return testDirectory;
+    }
+
+    private void execute(Project project, RunnerAndConfigurationSettings settings, boolean isFullRun) {
+        this.listenForResults(project, settings.getConfiguration(), isFullRun);
+        ProgramRunnerUtil.executeConfiguration(settings, DefaultRunExecutor.getRunExecutorInstance());
+    }
+
+    private RunnerAndConfigurationSettings getOrCreateConfiguration(Project project, VirtualFile testDirectory) {
+        var runManager = RunManager.getInstance(project);
+
+        var settings = runManager.findConfigurationByName(CONFIGURATION_NAME);
+        if (settings == null) {
+            settings = runManager.createConfiguration(
+                    CONFIGURATION_NAME, JUnitConfigurationType.getInstance().getConfigurationFactories()[0]);
+            // the configuration should not clutter the configurations of the tutor
+            settings.setTemporary(true);
+            runManager.addConfiguration(settings);
+        }
+
+        // The submission might have changed since the last run, so the configuration is always updated
+        var configuration = (JUnitConfiguration) settings.getConfiguration();
+        configuration.setModule(ModuleUtilCore.findModuleForFile(testDirectory, project));
+        configuration.setVMParameters(getVmParameters(configuration));
+
+        return settings;
+    }
+
+    /**
+     * The options of the test JVM. Since Java 19 the JVM can create and update the shared class archive
+     * on its own, older JVMs are started without it.
+     */
+    private static String getVmParameters(JUnitConfiguration configuration) {
+        var version = getJreVersion(configuration);
+        if (version == null || !version.isAtLeast(JavaSdkVersion.JDK_19)) {
+            return "";
+        }
+
+        Path archive = PathManager.getSystemDir().resolve("intelligrade").resolve("local-tests.jsa");
+        try {
+            // the JVM does not create the directory of the archive
+            Files.createDirectories(archive.getParent());
+        } catch (IOException e) {
+            LOG.warn("Failed to create the directory of the shared class archive", e);
+            return "";
+        }
+
+        return "-XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=" + ParametersListUtil.escape(archive.toString());
+    }
+
+    /**
+     * Determines the version of the JRE that runs the tests, which is the alternative JRE of the configuration
+     * if one is set, and the SDK of the module otherwise.
+     */
+    private static JavaSdkVersion getJreVersion(JUnitConfiguration configuration) {
+        var alternativeJre = configuration.isAlternativeJrePathEnabled() ? configuration.getAlternativeJrePath() : null;
+        if (alternativeJre != null && !alternativeJre.isBlank()) {
+            // the alternative JRE is either the name of a configured JDK or the path of its home directory
+            var jdk = ProjectJdkTable.getInstance().findJdk(alternativeJre);
+            var versionString =
+                    jdk != null ? jdk.getVersionString() : JavaSdk.getInstance().getVersionString(alternativeJre);
+            return versionString == null ? null : JavaSdkVersion.fromVersionString(versionString);
+        }
+
+        var module = configuration.getConfigurationModule().getModule();
+        var sdk = module != null
+                ? ModuleRootManager.getInstance(module).getSdk()
+                : ProjectRootManager.getInstance(configuration.getProject()).getProjectSdk();
+        return sdk == null ? null : JavaSdk.getInstance().getVersion(sdk);
+    }
+
+    private void listenForResults(Project project, RunProfile configuration, boolean isFullRun) {
+        if (this.connection != null) {
+            this.connection.disconnect();
+        }
+
+        // The events of all test runs of the project are reported on this topic, only the events of the run
+        // that was started by this configuration are reported.
+        var newConnection = project.getMessageBus().connect(this);
+        newConnection.subscribe(SMTRunnerEventsListener.TEST_STATUS, new SMTRunnerEventsAdapter() {
+            private SMTestProxy.SMRootTestProxy runRoot;
+
+            @Override
+            public void onTestingStarted(@NonNull SMTestProxy.SMRootTestProxy testsRoot) {
+                var properties = testsRoot.getTestConsoleProperties();
+                if (this.runRoot != null || properties == null || properties.getConfiguration() != configuration) {
+                    return;
+                }
+
+                this.runRoot = testsRoot;
+                if (isFullRun) {
+                    for (Runnable listener : runStartedListeners) {
+                        listener.run();
+                    }
+                }
+            }
+
+            @Override
+            public void onTestFinished(@NonNull SMTestProxy test) {
+                if (!test.isLeaf() || this.runRoot == null || findRoot(test) != this.runRoot) {
+                    return;
+                }
+
+                var result = toResult(test);
+                for (Consumer<LocalTestResult> listener : resultListeners) {
+                    listener.accept(result);
+                }
+            }
+
+            @Override
+            public void onTestingFinished(@NonNull SMTestProxy.SMRootTestProxy testsRoot) {
+                if (testsRoot != this.runRoot) {
+                    return;
+                }
+
+                newConnection.disconnect();
+                if (connection == newConnection) {
+                    connection = null;
+                }
+            }
+        });
+
+        this.connection = newConnection;
+    }
+
+    private static SMTestProxy findRoot(SMTestProxy test) {
+        SMTestProxy current = test;
+        while (current.getParent() != null) {
+            current = current.getParent();
+        }
+
+        return current;
+    }
+
+    private static LocalTestResult toResult(SMTestProxy test) {
+        String name = test.getName();
+        if (test.getParent() != null && !(test.getParent() instanceof SMTestProxy.SMRootTestProxy)) {
+            name = test.getParent().getName() + "." + name;
+        }
+
+        // the location has the form java:test://package.Class/method
+        String className = null;
+        String methodName = null;
+        String location = test.getLocationUrl();
+        if (location != null && location.startsWith(TEST_LOCATION_PROTOCOL)) {
+            String path = location.substring(TEST_LOCATION_PROTOCOL.length());
+            int separator = path.indexOf('/');
+            if (separator > 0) {
+                className = path.substring(0, separator);
+                methodName = path.substring(separator + 1);
+            }
+        }
+
+        if (test.isIgnored()) {
+            return new LocalTestResult(name, className, methodName, LocalTestResult.Outcome.IGNORED, "");
+        }
+
+        if (test.isDefect()) {
+            String details = String.join(
+                            "\n",
+                            test.getErrorMessage() == null ? "" : test.getErrorMessage(),
+                            test.getStacktrace() == null ? "" : test.getStacktrace())
+                    .strip();
+            return new LocalTestResult(name, className, methodName, LocalTestResult.Outcome.FAILED, details);
+        }
+
+        return new LocalTestResult(name, className, methodName, LocalTestResult.Outcome.PASSED, "");
+    }
+
+    @Override
+    public void dispose() {
+        // the connection is disposed together with this service
+        this.connection = null;
+    }
+}
@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.utils;
 
 import java.net.HttpURLConnection;
@@ -8,11 +8,16 @@ import java.time.format.DateTimeFormatter;
 
 import com.intellij.notification.NotificationGroupManager;
 import com.intellij.notification.NotificationType;
+import com.intellij.util.ThrowableComputable;
 import edu.kit.kastel.sdq.artemis4j.ArtemisClientException;
 import edu.kit.kastel.sdq.artemis4j.ArtemisNetworkException;
 import edu.kit.kastel.sdq.artemis4j.grading.Assessment;
 import edu.kit.kastel.sdq.artemis4j.grading.ClonedProgrammingSubmission;
+import edu.kit.kastel.sdq.intelligrade.extensions.settings.ArtemisSettingsState;
+import edu.kit.kastel.sdq.intelligrade.extensions.settings.VCSAccessOption;
 import edu.kit.kastel.sdq.intelligrade.state.PluginState;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 
 /**
  * Utility Class to handle Artemis related common tasks such as
@@ -34,6 +39,13 @@ public final class ArtemisUtils {
 
     public static ClonedProgrammingSubmission cloneViaSSH(Assessment assessment, Path workspacePath)
             throws ArtemisClientException {
+        return withPluginClassLoader(() -> assessment.getSubmission().cloneViaSSHInto(workspacePath));
+    }
+
+    /**
+     * Runs an action that accesses git repositories with the plugin class loader as the context class loader.
+     */
+    public static <T, E extends Exception> T withPluginClassLoader(ThrowableComputable<T, E> action) throws E {
         // We need to switch the classloader here (same as
         // https://plugins.jetbrains.com/docs/intellij/plugin-class-loaders.html#using-serviceloader)
         // Somewhere deep in the auth libs, an instanceof check is performed, which returns false in
@@ -44,12 +56,28 @@ public final class ArtemisUtils {
         var pluginClassLoader = PluginState.getInstance().getClass().getClassLoader();
         try {
             currentThread.setContextClassLoader(pluginClassLoader);
-            return assessment.getSubmission().cloneViaSSHInto(workspacePath);
+            return action.compute();
         } finally {
             currentThread.setContextClassLoader(originalClassLoader);
         }
     }
 
+    /**
+     * Creates the credentials that are used to access the repositories on Artemis, the same ones that are used to
+     * clone the submissions.
+     *
+     * @return the credentials, or null if the repositories are accessed via SSH, which uses the keys of the user
+     * @throws ArtemisNetworkException if the assessor could not be fetched
+     */
+    public static CredentialsProvider createVcsCredentials() throws ArtemisNetworkException {
+        if (ArtemisSettingsState.getInstance().getVcsAccessOption() == VCSAccessOption.SSH) {
+            return null;
+        }
+
+        var assessor = PluginState.getInstance().getAssessor();
+        return new UsernamePasswordCredentialsProvider(assessor.getLogin(), assessor.getGitToken().orElse(""));
+    }
+
     public static void displayGenericErrorBalloon(String title, String content) {
         NotificationGroupManager.getInstance()
                 .getNotificationGroup("IntelliGrade Notifications")
@@ -1,4 +1,4 @@
-/* Licensed under EPL-2.0 2024-2025. */
+/* Licensed under EPL-2.0 2024-2026. */
 package edu.kit.kastel.sdq.intelligrade.utils;
 
 import java.awt.Color;
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 
 import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.editor.Editor;
@@ -90,6 +91,27 @@ public final class IntellijUtil {
         return file;
     }
 
+    /**
+     * Returns the path of the file relative to the assignment directory, in the same format as the
+     * file paths of annotations.
+     *
+     * @param file the file
+     * @return the relative path or an empty optional if the file is not part of the assignment
+     */
+    public static Optional<String> getAssignmentRelativePath(VirtualFile file) {
+        if (!file.isInLocalFileSystem()) {
+            return Optional.empty();
+        }
+
+        var assignmentDirectory = getProjectRootDirectory().resolve(ActiveAssessment.ASSIGNMENT_SUB_PATH);
+        var path = file.toNioPath();
+        if (!path.startsWith(assignmentDirectory)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(assignmentDirectory.relativize(path).toString().replace("\\", "/"));
+    }
+
     public static String colorToCSS(Color color) {
         return "rgb(%d, %d, %d)".formatted(color.getRed(), color.getGreen(), color.getBlue());
     }
@@ -26,6 +26,7 @@ import kotlinx.coroutines.withContext
 import org.apache.commons.lang3.reflect.MethodUtils
 import org.eclipse.jgit.lib.RepositoryCache
 import org.eclipse.jgit.storage.file.WindowCacheConfig
+import org.jetbrains.annotations.VisibleForTesting
 import java.io.IOException
 import java.lang.Exception
 import java.nio.file.Path
@@ -55,7 +56,8 @@ object AssessmentTracker {
         listeners.add(listener)
     }
 
-    private fun updateAssessment(assessment: ActiveAssessment?) {
+    @VisibleForTesting
+    fun updateAssessment(assessment: ActiveAssessment?) {
         this.activeAssessment = assessment
         for (listener in listeners) {
             listener.update(activeAssessment)
@@ -119,6 +121,9 @@ object AssessmentTracker {
             mavenInitializer.addListener {
                 // Sometimes the SDK is not set properly, this will set the SDK if it is not set
                 ProjectUtil.updateProjectSDK()
+
+                // The project can only be compiled once maven has loaded it and the SDK is set
+                BackgroundCompiler.getInstance(IntellijUtil.getActiveProject()).start()
             }
 
             mavenInitializer.start()
@@ -199,6 +204,8 @@ object AssessmentTracker {
     suspend fun cleanupProjectDirectory() {
         // Close all open editors
         val project = IntellijUtil.getActiveProject()
+        // The files are about to be deleted, so there is nothing to compile anymore
+        BackgroundCompiler.getInstance(project).cancel()
         val editorManager = FileEditorManager.getInstance(project)
         for (editor in editorManager.allEditors) {
             withContext(Dispatchers.EDT) {
@@ -0,0 +1,135 @@
+package edu.kit.kastel.sdq.intelligrade
+
+import com.intellij.openapi.application.EDT
+import com.intellij.openapi.application.smartReadAction
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.components.service
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.project.Project
+import com.intellij.task.ProjectTaskManager
+import edu.kit.kastel.sdq.intelligrade.autograder.AutograderTask
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.job
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import org.jetbrains.concurrency.CancellablePromise
+import org.jetbrains.concurrency.Promise
+import org.jetbrains.concurrency.await
+import kotlin.time.Duration.Companion.seconds
+
+private val LOG = logger<BackgroundCompiler>()
+
+/**
+ * Compiles the checked-out submission in the background, so that running or navigating to compiled classes
+ * does not have to wait for a full build.
+ *
+ * The build is incremental and only started once the IDE is idle, i.e. after indexing has finished
+ * and while the autograder is not running.
+ */
+@Service(Service.Level.PROJECT)
+class BackgroundCompiler(
+    private val project: Project,
+    private val cs: CoroutineScope,
+) {
+    // start() is called from the maven import and cancel() from the assessment coroutines, so both are guarded
+    private val lock = Any()
+
+    // waits until the IDE is idle and then starts the build
+    private var job: Job? = null
+
+    // the build started by the job, null if it has not been started yet
+    private var build: Promise<ProjectTaskManager.Result>? = null
+
+    companion object {
+        @JvmStatic
+        fun getInstance(project: Project): BackgroundCompiler = project.service<BackgroundCompiler>()
+    }
+
+    /**
+     * Starts the background build, a build that is still waiting or running is replaced.
+     */
+    fun start() {
+        synchronized(lock) {
+            job?.cancel()
+            cancelBuild(build)
+            build = null
+
+            job = cs.launch { waitAndBuild(coroutineContext.job) }
+        }
+    }
+
+    private suspend fun waitAndBuild(ownJob: Job) {
+        // The build should not compete with indexing or the autograder for the CPU
+        while (true) {
+            smartReadAction(project) {}
+            while (AutograderTask.isRunning()) {
+                delay(1.seconds)
+                smartReadAction(project) {}
+            }
+
+            val isDone =
+                withContext(Dispatchers.EDT) {
+                    // the autograder might have been started while waiting for the EDT, then the build waits again
+                    if (AutograderTask.isRunning()) {
+                        return@withContext false
+                    }
+
+                    synchronized(lock) {
+                        // the job might have been cancelled or replaced while waiting for the lock,
+                        // then cancel() or start() already took over and no build must be started
+                        if (job !== ownJob || !ownJob.isActive) {
+                            return@withContext true
+                        }
+
+                        LOG.debug("Starting background build")
+                        // only the changed files are compiled, so this is cheap if the tutor already built the project
+                        build = ProjectTaskManager.getInstance(project).buildAllModules()
+                    }
+                    true
+                }
+
+            if (isDone) {
+                return
+            }
+        }
+    }
+
+    /**
+     * Cancels the background build and waits until it has stopped, so that the files can be deleted.
+     */
+    suspend fun cancel() {
+        val cancelledJob: Job?
+        val cancelledBuild: Promise<ProjectTaskManager.Result>?
+        synchronized(lock) {
+            // the job is cancelled while holding the lock, so that it can not start a build afterwards
+            cancelledJob = job
+            cancelledJob?.cancel()
+            cancelledBuild = build
+            job = null
+            build = null
+        }
+
+        cancelledJob?.join()
+        if (cancelledBuild == null) {
+            return
+        }
+
+        cancelBuild(cancelledBuild)
+        try {
+            cancelledBuild.await()
+        } catch (e: Exception) {
+            // a cancelled build completes with an error, the cancellation of the caller is passed on
+            currentCoroutineContext().ensureActive()
+            LOG.debug("Background build stopped", e)
+        }
+    }
+
+    private fun cancelBuild(build: Promise<ProjectTaskManager.Result>?) {
+        (build as? CancellablePromise<*>)?.cancel()
+    }
+}
@@ -1,5 +1,6 @@
 package edu.kit.kastel.sdq.intelligrade
 
+import com.intellij.openapi.application.EDT
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.components.service
 import com.intellij.openapi.diagnostic.logger
@@ -12,11 +13,17 @@ import edu.kit.kastel.sdq.artemis4j.grading.MoreRecentSubmissionException
 import edu.kit.kastel.sdq.artemis4j.grading.PackedAssessment
 import edu.kit.kastel.sdq.artemis4j.grading.metajson.AnnotationMappingException
 import edu.kit.kastel.sdq.artemis4j.grading.penalty.GradingConfig
+import edu.kit.kastel.sdq.intelligrade.actions.RemapAnnotationsAction
+import edu.kit.kastel.sdq.intelligrade.state.ActiveAssessment
+import edu.kit.kastel.sdq.intelligrade.templatediff.AnnotationRemapper
+import edu.kit.kastel.sdq.intelligrade.templatediff.CommitDiff
 import edu.kit.kastel.sdq.intelligrade.utils.ArtemisUtils
+import edu.kit.kastel.sdq.intelligrade.utils.IntellijUtil
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import java.io.IOException
 
 private val LOG = logger<ReopenAssessmentService>()
 
@@ -79,10 +86,79 @@ class ReopenAssessmentService(
                     "Übungsleitung!",
             )
         } catch (e: MoreRecentSubmissionException) {
+            LOG.info("The student submitted again, the annotations are moved to the newer submission", e)
+            reopenNewerSubmission(reporter, packedAssessment, gradingConfig, e.newerSubmissionId)
+        }
+    }
+
+    /**
+     * The student submitted again after the assessment, so the assessed submission can not be locked anymore.
+     * The newer submission that Artemis reported is assessed instead, and the manual annotations of the old
+     * result are copied to it, remapped through the changes between the two commits.
+     */
+    private suspend fun reopenNewerSubmission(
+        reporter: ProgressReporter,
+        packedAssessment: PackedAssessment,
+        gradingConfig: GradingConfig,
+        newerSubmissionId: Long,
+    ) {
+        try {
+            val oldSubmission = packedAssessment.submission()
+            val (oldAssessment, newAssessment) =
+                reporter.sizedStep(20, "Locking newer submission...") {
+                    withContext(Dispatchers.IO) {
+                        val exercise = oldSubmission.exercise
+                        val lockedAssessment =
+                            exercise.tryLockSubmission(newerSubmissionId, packedAssessment.round(), gradingConfig)
+
+                        packedAssessment.open(gradingConfig) to lockedAssessment
+                    }
+                }
+
+            if (newAssessment.isEmpty) {
+                ArtemisUtils.displayGenericErrorBalloon(
+                    "Could not reopen assessment",
+                    "The student has submitted a newer version, which could not be locked.",
+                )
+                return
+            }
+
+            val activeAssessment =
+                reporter.sizedStep(60, "Cloning...") {
+                    AssessmentTracker.initializeAssessment(newAssessment.get())
+                } ?: return
+
+            reporter.sizedStep(20, "Remapping annotations...") {
+                val annotations = oldAssessment.getAnnotations(true).filter(AnnotationRemapper::isRemapped)
+                val assignmentDirectory =
+                    IntellijUtil.getProjectRootDirectory().resolve(ActiveAssessment.ASSIGNMENT_SUB_PATH)
+                val result =
+                    try {
+                        val diff =
+                            withContext(Dispatchers.IO) {
+                                CommitDiff.compute(assignmentDirectory, oldSubmission.commitHash)
+                            }
+                        AnnotationRemapper.remap(annotations, diff)
+                    } catch (e: IOException) {
+                        // without the diff, the annotations are copied to their old lines and all have to be checked
+                        LOG.warn(e)
+                        AnnotationRemapper.Result(mapOf(), annotations)
+                    }
+
+                withContext(Dispatchers.EDT) {
+                    activeAssessment.copyAnnotations(annotations, result.newLocations(), result.needsReview())
+                    RemapAnnotationsAction.showRemapped(activeAssessment, result.newLocations().size)
+                }
+            }
+        } catch (e: ArtemisNetworkException) {
+            LOG.warn(e)
+            ArtemisUtils.displayNetworkErrorBalloon("Could not lock the newer submission", e)
+        } catch (e: AnnotationMappingException) {
             LOG.warn(e)
             ArtemisUtils.displayGenericErrorBalloon(
-                "Could not reopen assessment",
-                "The student has submitted a newer version of his code.",
+                "Could not parse assessment",
+                "Could not parse previous assessment. This is a serious bug; please contact the " +
+                    "Übungsleitung!",
             )
         }
     }
@@ -0,0 +1,88 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.testFramework.junit5.TestApplication;
+import edu.kit.kastel.sdq.artemis4j.grading.Assessment;
+import edu.kit.kastel.sdq.intelligrade.AssessmentTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@TestApplication
+class ActiveAssessmentLifecycleTest {
+    private static final int NUMBER_OF_ASSESSMENTS = 50;
+
+    private Disposable project;
+
+    @BeforeEach
+    void setUp() {
+        this.project = Disposer.newDisposable("project");
+    }
+
+    @AfterEach
+    void tearDown() {
+        AssessmentTracker.INSTANCE.clearAssessment();
+        waitForEdt();
+        Disposer.dispose(this.project);
+    }
+
+    @Test
+    void gradingManyAssessmentsDoesNotRetainThem() throws InterruptedException {
+        // like the tool windows, this listener lives as long as the project and registers on every assessment
+        List<AnnotationChangeSet> changeSets = new ArrayList<>();
+        PluginState.getInstance()
+                .registerAssessmentStartedListener(
+                        assessment -> assessment.registerAnnotationChangeListener(changeSets::add, this.project),
+                        this.project);
+
+        List<WeakReference<ActiveAssessment>> assessments = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_ASSESSMENTS; i++) {
+            assessments.add(startAssessment());
+        }
+
+        AssessmentTracker.INSTANCE.clearAssessment();
+        waitForEdt();
+
+        // every assessment has been seen by the listener
+        assertEquals(NUMBER_OF_ASSESSMENTS, changeSets.size());
+
+        // nothing should keep the closed assessments alive
+        for (int attempt = 0; attempt < 20 && assessments.stream().anyMatch(ref -> ref.get() != null); attempt++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        long retained = assessments.stream().filter(ref -> ref.get() != null).count();
+        assertEquals(0, retained, "closed assessments are still reachable");
+    }
+
+    /**
+     * Starts an assessment the way the plugin does, the previous one is closed by this.
+     * It is a separate method so that no local variable of the test keeps the assessment alive.
+     */
+    private static WeakReference<ActiveAssessment> startAssessment() {
+        var assessment = new ActiveAssessment(mock(Assessment.class, RETURNS_DEEP_STUBS), null);
+        AssessmentTracker.INSTANCE.updateAssessment(assessment);
+        waitForEdt();
+
+        return new WeakReference<>(assessment);
+    }
+
+    /**
+     * The listeners of the plugin state run later on the EDT, this waits until they have run.
+     */
+    private static void waitForEdt() {
+        ApplicationManager.getApplication().invokeAndWait(() -> {});
+    }
+}
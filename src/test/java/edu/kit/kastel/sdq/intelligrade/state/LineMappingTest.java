@@ -0,0 +1,63 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LineMappingTest {
+    private static final int DELETED = LineMapping.DELETED;
+
+    @Test
+    void keepsLinesWithoutEdits() {
+        assertArrayEquals(new int[] {0, 5, 9}, LineMapping.IDENTITY.mapSortedLines(new int[] {0, 5, 9}));
+    }
+
+    @Test
+    void shiftsLinesBelowInsertionsAndDeletions() {
+        var mapping = new LineMapping(List.of(
+                // two lines inserted before line 2
+                new LineMapping.Edit(2, 2, 2, 4),
+                // lines 5 and 6 deleted
+                new LineMapping.Edit(5, 7, 7, 7)));
+
+        assertArrayEquals(
+                new int[] {0, 1, 4, 6, DELETED, DELETED, 7, 8},
+                mapping.mapSortedLines(new int[] {0, 1, 2, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    void marksModifiedLinesAsDeleted() {
+        // line 3 was replaced by three lines
+        var mapping = new LineMapping(List.of(new LineMapping.Edit(3, 4, 3, 6)));
+
+        assertArrayEquals(new int[] {2, DELETED, DELETED, 6}, mapping.mapSortedLines(new int[] {2, 3, 3, 4}));
+    }
+
+    @Test
+    void rejectsUnsortedLines() {
+        var mapping = new LineMapping(List.of(new LineMapping.Edit(3, 4, 3, 6)));
+
+        assertThrows(IllegalArgumentException.class, () -> mapping.mapSortedLines(new int[] {4, 2}));
+    }
+
+    @Test
+    void findsTheReplacementOfChangedLines() {
+        var mapping = new LineMapping(List.of(
+                // line 1 replaced by two lines
+                new LineMapping.Edit(1, 2, 1, 3),
+                // lines 5 and 6 deleted
+                new LineMapping.Edit(5, 7, 6, 6),
+                // the last two lines deleted
+                new LineMapping.Edit(9, 11, 8, 8)));
+
+        assertEquals(1, mapping.findReplacement(1));
+        assertEquals(5, mapping.findReplacement(6));
+        assertEquals(7, mapping.findReplacement(10));
+        assertThrows(IllegalArgumentException.class, () -> mapping.findReplacement(3));
+    }
+}
@@ -0,0 +1,49 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ListenerListTest {
+    private Disposable project;
+
+    @BeforeEach
+    void setUp() {
+        this.project = Disposer.newDisposable("project");
+    }
+
+    @AfterEach
+    void tearDown() {
+        Disposer.dispose(this.project);
+    }
+
+    @Test
+    void listenerIsRemovedWithParent() {
+        var listeners = new ListenerList<Runnable>();
+        var parent = Disposer.newDisposable("parent");
+        Disposer.register(this.project, parent);
+
+        listeners.add(() -> {}, parent);
+        listeners.add(() -> {}, this.project);
+        assertEquals(2, listeners.size());
+
+        Disposer.dispose(parent);
+        assertEquals(1, listeners.size());
+    }
+
+    @Test
+    void listenerIsNotAddedToDisposedParent() {
+        var listeners = new ListenerList<Runnable>();
+        var parent = Disposer.newDisposable("parent");
+        Disposer.dispose(parent);
+
+        assertFalse(listeners.add(() -> {}, parent));
+        assertEquals(0, listeners.size());
+    }
+}
@@ -0,0 +1,72 @@
+/* Licensed under EPL-2.0 2026. */
+package edu.kit.kastel.sdq.intelligrade.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MessageTrieTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long NOW = 1_800_000_000_000L;
+
+    @Test
+    void suggestsMessagesWithPrefixIgnoringCase() {
+        var trie = new MessageTrie();
+        trie.recordUse("Missing Javadoc", NOW);
+        trie.recordUse("Magic number", NOW);
+        trie.recordUse("Unused import", NOW);
+
+        assertEquals(List.of("Magic number", "Missing Javadoc"), trie.suggest("m", 10));
+        assertEquals(List.of("Missing Javadoc"), trie.suggest("MISS", 10));
+        assertEquals(List.of(), trie.suggest("x", 10));
+    }
+
+    @Test
+    void ranksFrequentAndRecentMessagesFirst() {
+        var trie = new MessageTrie();
+        trie.recordUse("Use a constant", NOW - 60 * DAY);
+        trie.recordUse("Use a constant", NOW - 60 * DAY);
+        trie.recordUse("Use a constant", NOW - 60 * DAY);
+        trie.recordUse("Use an enum", NOW - DAY);
+        trie.recordUse("Use a record", NOW - DAY);
+        trie.recordUse("Use a record", NOW);
+
+        // the old uses have decayed below the single recent use
+        assertEquals(List.of("Use a record", "Use an enum", "Use a constant"), trie.suggest("use", 10));
+    }
+
+    @Test
+    void keepsOnlyTheBestSuggestionsPerPrefix() {
+        var trie = new MessageTrie();
+        for (int i = 0; i < 2 * MessageTrie.MAX_SUGGESTIONS; i++) {
+            for (int j = 0; j <= i; j++) {
+                trie.recordUse("message " + i, NOW);
+            }
+        }
+
+        var suggestions = trie.suggest("message", MessageTrie.MAX_SUGGESTIONS);
+        assertEquals(MessageTrie.MAX_SUGGESTIONS, suggestions.size());
+        assertEquals("message 19", suggestions.getFirst());
+        assertEquals("message 10", suggestions.getLast());
+
+        // a message that was not among the best can become the best
+        for (int j = 0; j < 100; j++) {
+            trie.recordUse("message 0", NOW);
+        }
+        assertEquals("message 0", trie.suggest("message", 1).getFirst());
+    }
+
+    @Test
+    void suggestsForPrefixesLongerThanTheIndexedDepth() {
+        var trie = new MessageTrie();
+        var prefix = "a".repeat(MessageTrie.MAX_DEPTH + 10);
+        trie.recordUse(prefix + " first", NOW);
+        trie.recordUse(prefix + " second", NOW);
+        trie.recordUse(prefix + " second", NOW);
+
+        assertEquals(List.of(prefix + " second", prefix + " first"), trie.suggest(prefix, 10));
+        assertEquals(List.of(prefix + " first"), trie.suggest(prefix + " f", 10));
+    }
+}